@@ -29,43 +29,54 @@ public class AVLTreeMap<K extends Comparable<K>, V> extends BSTMap<K, V>
             insertElements(elements);
         } else {
             root = createBST(elements, 0, elements.length - 1);
+            size = elements.length;
         }
     }
 
     /**
-     * Recursively constructs a balanced binary search tree by inserting the
-     * elements via a divide-snd-conquer approach. The middle element in the
-     * array becomes the root. The middle of the left half becomes the root's
-     * left child. The middle element of the right half becomes the root's right
-     * child. This process continues until low > high, at which point the
-     * method returns a null Node.
-     * @param pairs an array of <K, V> pairs sorted by key
-     * @param low   the low index of the array of elements
-     * @param high  the high index of the array of elements
-     * @return      the root of the balanced tree of pairs
+     * Creates an AVL tree map of the given key-value pairs. If sorted is true,
+     * a balanced tree will be created, and if parallel is also true, its
+     * subtrees will be built in parallel on the common ForkJoinPool. If sorted
+     * is false, the pairs will be inserted in the order they are received.
+     * @param elements an array of key-value pairs
+     * @param sorted   whether elements is sorted by key
+     * @param parallel whether to build a sorted tree in parallel
      */
-    protected Node<K, V> createBST(Pair<K, V>[] pairs, int low, int high) {
-        if (low > high) {
-            return null;
-        }
-        int mid = low + (high - low) / 2;
-        Pair<K, V> pair = pairs[mid];
-        Node<K, V> parent = new Node<>(pair.key, pair.value);
-        size++;
-        parent.left = createBST(pairs, low, mid - 1);
-        if (parent.left != null) {
-            parent.left.parent = parent;
-        }
-        parent.right = createBST(pairs, mid + 1, high);
-        if (parent.right != null) {
-            parent.right.parent = parent;
-        }
+    public AVLTreeMap(Pair<K, V>[] elements, boolean sorted, boolean parallel) {
+        super(elements, sorted, parallel);
+    }
+
+    /**
+     * Creates an AVL tree map of the given key-value pairs, which may be in any
+     * order, in O(n log n) time. The pairs are sorted and deduplicated as in
+     * BSTMap.fromPairs(), with the last pair for a key winning, and the tree is
+     * built balanced with correct heights in one pass instead of by n calls
+     * to put.
+     * @param elements an array of key-value pairs in any order
+     * @return an AVL tree map of the pairs
+     */
+    public static <K extends Comparable<K>, V> AVLTreeMap<K, V> fromPairs(
+            Pair<K, V>[] elements) {
+        AVLTreeMap<K, V> map = new AVLTreeMap<>();
+        map.bulkLoad(elements);
+        return map;
+    }
+
+    /**
+     * Links the children of n as BSTMap.attach() does and recomputes the
+     * height of n from theirs. Every tree built by createBST() goes through
+     * here, so it comes out with correct heights.
+     * @param n     the node to link the children to
+     * @param left  the new left child of n, or null
+     * @param right the new right child of n, or null
+     */
+    @Override
+    protected void attach(Node<K, V> n, Node<K, V> left, Node<K, V> right) {
+        super.attach(n, left, right);
         // This line is critical for being able to add additional nodes or to
         // remove nodes. Forgetting this line leads to incorrectly balanced
         // trees.
-        parent.height =
-                Math.max(avlHeight(parent.left), avlHeight(parent.right)) + 1;
-        return parent;
+        n.height = Math.max(avlHeight(left), avlHeight(right)) + 1;
     }
 
     /**
@@ -78,79 +89,318 @@ public class AVLTreeMap<K extends Comparable<K>, V> extends BSTMap<K, V>
      *         mapping for key
      */
     @Override
-    public V put(K key, V value) {
+    protected V insert(K key, V value) {
         NodeOldValuePair nvp = new NodeOldValuePair(null, null);
         nvp = insertAndBalance(key, value, root, nvp);
         return nvp.oldValue;
     }
 
     /**
-     * Calls a recursive method remove to delete the mapping for a key from this map if it is present.
+     * Removes the mapping for a key from this map if it is present. The node
+     * holding the key is unlinked and, if it had two children, its successor
+     * is relinked into its place rather than copying keys and values around.
+     * Heights are then retraced bottom-up along the parent pointers, stopping
+     * as soon as a subtree's height no longer changes.
      * @param key key whose mapping is to be removed from the map
      * @return the previous value associated with key, or null if there was no
      *         mapping for key
      */
-    public V remove(K key) {
-        // Replace the line with the code required for proper removal from an
-        // AVL tree. This task is extra credit.
-        NodeOldValuePair node = new NodeOldValuePair(null, null);
-        return remove(key, root, node).oldValue;
+    @Override
+    protected V delete(K key) {
+        Node<K, V> z = iterativeSearch(key);
+        if (z == null) {
+            return null;
+        }
+        // The lowest node whose subtree lost a node.
+        Node<K, V> lowest;
+        if (z.left == null || z.right == null) {
+            lowest = z.parent;
+            transplant(z, z.left != null ? z.left : z.right);
+        } else {
+            Node<K, V> y = treeMinimum(z.right);
+            if (y.parent != z) {
+                lowest = y.parent;
+                transplant(y, y.right);
+                y.right = z.right;
+                y.right.parent = y;
+            } else {
+                lowest = y;
+            }
+            transplant(z, y);
+            y.left = z.left;
+            y.left.parent = y;
+            y.height = z.height;
+        }
+        z.left = z.right = z.parent = null;
+        size--;
+        modCount++;
+        retrace(lowest);
+        return z.value;
+    }
+
+    /**
+     * Returns a new map holding every mapping of this map and of other. Where
+     * both maps have a key, the value from other is kept. Both maps are
+     * flattened in key order, merged and rebuilt as a balanced tree, so this
+     * takes O(n + m) time rather than the O(m log(n + m)) of m calls to put.
+     * Neither map is changed.
+     * @param other the map to merge with this one
+     * @return the union of this map and other
+     */
+    public AVLTreeMap<K, V> union(AVLTreeMap<K, V> other) {
+        return merge(other, true, true, true);
+    }
+
+    /**
+     * Returns a new map holding the mappings of this map whose keys are also
+     * in other, in O(n + m) time. Neither map is changed.
+     * @param other the map whose keys are kept
+     * @return the intersection of this map and other
+     */
+    public AVLTreeMap<K, V> intersection(AVLTreeMap<K, V> other) {
+        return merge(other, false, true, false);
     }
 
-    private NodeOldValuePair remove(K key, Node<K,V> t, NodeOldValuePair nvp){
+    /**
+     * Returns a new map holding the mappings of this map whose keys are not in
+     * other, in O(n + m) time. Neither map is changed.
+     * @param other the map whose keys are dropped
+     * @return the difference of this map and other
+     */
+    public AVLTreeMap<K, V> difference(AVLTreeMap<K, V> other) {
+        return merge(other, true, false, false);
+    }
+
+    /**
+     * Merges the sorted mappings of this map and other in one linear pass and
+     * builds the result with createBST().
+     * @param other     the other map
+     * @param keepOnlyA whether to keep keys found only in this map
+     * @param keepBoth  whether to keep keys found in both maps
+     * @param keepOnlyB whether to keep keys found only in other
+     * @return the merged map
+     */
+    private AVLTreeMap<K, V> merge(AVLTreeMap<K, V> other, boolean keepOnlyA,
+                                   boolean keepBoth, boolean keepOnlyB) {
+        Pair<K, V>[] a = toPairs(), b = other.toPairs();
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Pair<K, V>[] merged = new Pair[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            int comparison = a[i].key.compareTo(b[j].key);
+            if (comparison < 0) {
+                if (keepOnlyA) {
+                    merged[n++] = a[i];
+                }
+                i++;
+            } else if (comparison > 0) {
+                if (keepOnlyB) {
+                    merged[n++] = b[j];
+                }
+                j++;
+            } else {
+                if (keepBoth) {
+                    merged[n++] = keepOnlyB ? b[j] : a[i];
+                }
+                i++;
+                j++;
+            }
+        }
+        while (keepOnlyA && i < a.length) {
+            merged[n++] = a[i++];
+        }
+        while (keepOnlyB && j < b.length) {
+            merged[n++] = b[j++];
+        }
+        AVLTreeMap<K, V> result = new AVLTreeMap<>();
+        result.root = result.createBST(merged, 0, n - 1);
+        result.size = n;
+        return result;
+    }
+
+    /**
+     * Splits this map at key in O(log n) time. Every mapping whose key is
+     * greater than or equal to key is moved into the returned map, and this
+     * map keeps the mappings whose keys are less than key. No entries are
+     * copied: the tree is cut along the search path for key, and the pieces
+     * hanging off either side of the path are put back together with join().
+     * @param key the key to split at
+     * @return a map of the mappings of this map with keys at or above key
+     */
+    public AVLTreeMap<K, V> split(K key) {
+        Node<K, V>[] halves = split(root, key);
+        AVLTreeMap<K, V> above = new AVLTreeMap<>();
+        above.replaceRoot(halves[1]);
+        replaceRoot(halves[0]);
+        return above;
+    }
+
+    /**
+     * Splits the subtree t into the trees of the keys below key and of the
+     * keys at or above it.
+     * @return the two trees, below key first
+     */
+    private Node<K, V>[] split(Node<K, V> t, K key) {
         if (t == null) {
-            return nvp;
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Node<K, V>[] empty = new Node[2];
+            return empty;
         }
-        int comparison = key.compareTo(t.key);
-        if(comparison < 0){
-            nvp = remove(key, t.left , nvp);
+        Node<K, V>[] halves;
+        if (key.compareTo(t.key) <= 0) {
+            halves = split(t.left, key);
+            halves[1] = join(halves[1], t, t.right);
+        } else {
+            halves = split(t.right, key);
+            halves[0] = join(t.left, t, halves[0]);
         }
-        else if(comparison > 0){
-            nvp = remove(key, t.right, nvp);
+        return halves;
+    }
+
+    /**
+     * Returns a map holding all of the mappings of left and right, whose keys
+     * must all be below those of right, in O(log n) time. The two trees are
+     * concatenated by height rather than rebuilt: the largest node of left
+     * is taken out and used as the pivot of join(). Both arguments are
+     * consumed and left empty.
+     * @param left  the map of the lower keys
+     * @param right the map of the higher keys
+     * @return a map of the mappings of left and right
+     * @throws IllegalArgumentException if a key of left is not below every key
+     *         of right
+     */
+    public static <K extends Comparable<K>, V> AVLTreeMap<K, V> join(
+            AVLTreeMap<K, V> left, AVLTreeMap<K, V> right) {
+        if (left.root != null && right.root != null
+                && left.treeMaximum(left.root).key.compareTo(
+                        right.treeMinimum(right.root).key) >= 0) {
+            throw new IllegalArgumentException(
+                    "Keys of left must be below keys of right.");
         }
-        else if(t.left != null && t.right != null) {
-            Node<K,V> hold = treeMinimum(t.right);
-            if(nvp != null) nvp.oldValue = t.value;
-            t.key = hold.key;
-            t.value = hold.value;
-            remove(hold.key, t.right, nvp);
+        AVLTreeMap<K, V> joined = new AVLTreeMap<>();
+        if (left.root == null) {
+            joined.replaceRoot(right.root);
+        } else {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Node<K, V>[] last = new Node[1];
+            Node<K, V> rest = left.removeLast(left.root, last);
+            joined.replaceRoot(joined.join(rest, last[0], right.root));
         }
-        else {
-            if(t == root && (t.left == null && t.right == null)) root = null;
-            if(t.left != null){
-                if(nvp.oldValue == null && key.compareTo(t.key) == 0) nvp.oldValue = t.value;
-                t.key = t.left.key;
-                t.value = t.left.value;
-                remove(t.left.key, t.left, nvp);
-            }
-            else if(t.right != null){
-                if(nvp.oldValue == null && key.compareTo(t.key) == 0) nvp.oldValue = t.value;
-                t.key = t.right.key;
-                t.value = t.right.value;
-                remove(t.right.key, t.right, nvp);
-            }
-            else{
-                if(t.parent != null && t.parent.right == t) t.parent.right = null;
-                if(t.parent != null && t.parent.left == t) t.parent.left = null;
-                if(nvp.oldValue == null) nvp.oldValue = t.value;
-                t.parent = null;
-                --size;
+        left.replaceRoot(null);
+        right.replaceRoot(null);
+        return joined;
+    }
+
+    /**
+     * Makes n, the root of a subtree with correct cached sizes and heights,
+     * the whole of this tree.
+     */
+    private void replaceRoot(Node<K, V> n) {
+        if (n != null) {
+            n.parent = null;
+        }
+        root = n;
+        size = subtreeSize(n);
+        modCount++;
+    }
+
+    /**
+     * Joins left, pivot and right into one AVL tree, whatever the difference
+     * in height between left and right. If they are within one of each other
+     * pivot simply becomes their parent. Otherwise pivot is attached down the
+     * inner spine of the taller side, at the first node no more than one
+     * taller than the shorter side, and the nodes above it are rebalanced on
+     * the way back up. This takes O(|height(left) - height(right)| + 1) time.
+     * @param left  the subtree of keys below pivot, or null
+     * @param pivot the node joining the two subtrees
+     * @param right the subtree of keys above pivot, or null
+     * @return the root of the joined tree
+     */
+    @Override
+    protected Node<K, V> join(Node<K, V> left, Node<K, V> pivot,
+                              Node<K, V> right) {
+        if (avlHeight(left) > avlHeight(right) + 1) {
+            return joinRight(left, pivot, right);
+        } else if (avlHeight(right) > avlHeight(left) + 1) {
+            return joinLeft(left, pivot, right);
+        }
+        attach(pivot, left, right);
+        return pivot;
+    }
+
+    private Node<K, V> joinRight(Node<K, V> left, Node<K, V> pivot,
+                                 Node<K, V> right) {
+        Node<K, V> c = left.right;
+        Node<K, V> joined;
+        if (avlHeight(c) <= avlHeight(right) + 1) {
+            attach(pivot, c, right);
+            joined = pivot;
+        } else {
+            joined = joinRight(c, pivot, right);
+        }
+        attach(left, left.left, joined);
+        return balanceDetached(left);
+    }
+
+    private Node<K, V> joinLeft(Node<K, V> left, Node<K, V> pivot,
+                                Node<K, V> right) {
+        Node<K, V> c = right.left;
+        Node<K, V> joined;
+        if (avlHeight(c) <= avlHeight(left) + 1) {
+            attach(pivot, left, c);
+            joined = pivot;
+        } else {
+            joined = joinLeft(left, pivot, c);
+        }
+        attach(right, joined, right.right);
+        return balanceDetached(right);
+    }
+
+    /**
+     * Balances t, the root of a subtree that is not linked into the tree.
+     * Clearing the parent first keeps the rotations from relinking t's old
+     * parent; they set root instead, which the batch operation that called
+     * join() overwrites once it is done.
+     */
+    private Node<K, V> balanceDetached(Node<K, V> t) {
+        t.parent = null;
+        Node<K, V> balanced = balance(t);
+        balanced.parent = null;
+        return balanced;
+    }
+
+    /**
+     * Rebalances the tree from n up towards the root after a removal. Once a
+     * subtree ends up with the same height it had before, nothing above it can
+     * need rebalancing, so only the subtree sizes are updated from there on.
+     * @param n the lowest node whose subtree changed
+     */
+    private void retrace(Node<K, V> n) {
+        while (n != null) {
+            int oldHeight = n.height;
+            n = balance(n);
+            boolean settled = n.height == oldHeight;
+            n = n.parent;
+            if (settled) {
+                updateSizes(n);
+                return;
             }
         }
-        Node<K, V> n = balance(t);
-        nvp.node = n;
-        return nvp;
     }
 
     private NodeOldValuePair insertAndBalance(K key, V value, Node<K, V> t, NodeOldValuePair nvp) {
         if (t == null) {
             size++;
+            modCount++;
             nvp.node = new Node<K, V>(key, value);
             if (root == null) {
                 root = nvp.node;
             }
             return nvp;
         }
+        if (TreeMetrics.ENABLED) {
+            pathLength++;
+        }
         int comparison = key.compareTo(t.key);
         // TODO
         // Complete the missing section of code here.
@@ -173,35 +423,65 @@ public class AVLTreeMap<K extends Comparable<K>, V> extends BSTMap<K, V>
         return nvp;
     }
 
+    /**
+     * Restores the AVL balance property at t, assuming the heights stored in
+     * the children of t are already correct. Only the cached Node.height
+     * values are consulted, so balancing a node is O(1) rather than a walk of
+     * its whole subtree.
+     * @param t the root of the subtree to balance
+     * @return  the root of the balanced subtree
+     */
     private Node<K, V> balance(Node<K, V> t) {
-        // TODO
-        if(t == null){
+        if (t == null) {
             return t;
         }
-        if(height(t.left) - height(t.right) > ALLOWED_IMBALANCE){
-            if(height(t.left.left) >= height(t.left.right)){
+        if (avlHeight(t.left) - avlHeight(t.right) > ALLOWED_IMBALANCE) {
+            if (avlHeight(t.left.left) >= avlHeight(t.left.right)) {
                 t = rotateWithLeftChild(t);
-            }
-            else{
+                if (TreeMetrics.ENABLED) {
+                    TreeMetrics.global().recordSingleRotation();
+                }
+            } else {
                 t = doubleWithLeftChild(t);
+                if (TreeMetrics.ENABLED) {
+                    TreeMetrics.global().recordDoubleRotation();
+                }
             }
-        }
-        else if(height(t.right) - height(t.left) > ALLOWED_IMBALANCE){
-            if(height(t.right.right) >= height(t.right.left)){
+        } else if (avlHeight(t.right) - avlHeight(t.left) > ALLOWED_IMBALANCE) {
+            if (avlHeight(t.right.right) >= avlHeight(t.right.left)) {
                 t = rotateWithRightChild(t);
-            }
-            else {
+                if (TreeMetrics.ENABLED) {
+                    TreeMetrics.global().recordSingleRotation();
+                }
+            } else {
                 t = doubleWithRightChild(t);
+                if (TreeMetrics.ENABLED) {
+                    TreeMetrics.global().recordDoubleRotation();
+                }
             }
         }
-        t.height = Math.max(height(t.left), height(t.right)) + 1;
+        t.height = Math.max(avlHeight(t.left), avlHeight(t.right)) + 1;
+        updateSize(t);
         return t;
     }
 
     private int avlHeight(Node<K, V> t) {
+        if (TreeMetrics.ENABLED) {
+            TreeMetrics.global().recordHeightLookup();
+        }
         return t == null ? -1 : t.height;
     }
 
+    /**
+     * Returns the height of the tree. If the tree is null, the height is -1.
+     * Every node of an AVL tree caches its own height, so this is O(1).
+     * @return the height of the tree
+     */
+    @Override
+    public int height() {
+        return avlHeight(root);
+    }
+
     private Node<K, V> rotateWithLeftChild(Node<K, V> k2) {
         // TODO
         Node<K,V> node = k2.left;
@@ -216,8 +496,10 @@ public class AVLTreeMap<K extends Comparable<K>, V> extends BSTMap<K, V>
         else{ root = node; }
         node.right = k2;
         k2.parent = node;
-        k2.height = Math.max(height(k2.left), height(k2.right)) + 1;
-        node.height = Math.max(height(node.left), k2.height) + 1;
+        k2.height = Math.max(avlHeight(k2.left), avlHeight(k2.right)) + 1;
+        node.height = Math.max(avlHeight(node.left), k2.height) + 1;
+        updateSize(k2);
+        updateSize(node);
         return node;
     }
 
@@ -235,8 +517,10 @@ public class AVLTreeMap<K extends Comparable<K>, V> extends BSTMap<K, V>
         else { root = node; }
         node.left = k1;
         k1.parent = node;
-        k1.height = Math.max(height(k1.left), height(k1.right)) + 1;
-        node.height = Math.max(height(node.right), k1.height) +1;
+        k1.height = Math.max(avlHeight(k1.left), avlHeight(k1.right)) + 1;
+        node.height = Math.max(avlHeight(node.right), k1.height) + 1;
+        updateSize(k1);
+        updateSize(node);
         return node;
     }
 
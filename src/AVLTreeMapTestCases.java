@@ -12,11 +12,15 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class AVLTreeMapTestCases {
 
     public static final double DELTA = 1e-7;
+    // balance() reads a bounded number of cached heights at each level.
+    private static final int LOOKUPS_PER_LEVEL = 8;
 
     private Method getTraversal(AVLTreeMap map, String traversal) throws NoSuchMethodException {
         Method method = map.getClass().getSuperclass().getDeclaredMethod(traversal, Node.class, StringBuilder.class, int.class);
@@ -172,4 +176,362 @@ public class AVLTreeMapTestCases {
         assertEquals(2.333333333333333, map.successfulSearchCost(), DELTA);
         assertEquals(2.857142857142857, map.unsuccessfulSearchCost(), DELTA);
     }
+
+    /**
+     * Recomputes the height of every node from scratch and checks it against
+     * the cached Node.height, along with the AVL balance property, the
+     * parent pointers and the subtree sizes.
+     */
+    private int checkHeights(Node<?, ?> n) {
+        if (n == null) {
+            return -1;
+        }
+        assertTrue(n.left == null || n.left.parent == n, "bad parent at " + n);
+        assertTrue(n.right == null || n.right.parent == n, "bad parent at " + n);
+        int left = checkHeights(n.left), right = checkHeights(n.right);
+        assertTrue(Math.abs(left - right) <= 1, "unbalanced at " + n);
+        assertEquals(Math.max(left, right) + 1, n.height, "stale height at " + n);
+        assertEquals(1 + (n.left == null ? 0 : n.left.size)
+                + (n.right == null ? 0 : n.right.size), n.size, "stale size at " + n);
+        return n.height;
+    }
+
+    @Test
+    public void testCachedHeights01() {
+        AVLTreeMap<Integer, Integer> map = new AVLTreeMap<>();
+        java.util.Random random = new java.util.Random(3134);
+        for (int i = 0; i < 2000; i++) {
+            map.put(random.nextInt(1000), i);
+            checkHeights(map.root);
+        }
+        for (int i = 0; i < 2000; i++) {
+            map.remove(random.nextInt(1000));
+            checkHeights(map.root);
+        }
+        assertEquals(checkHeights(map.root), map.height());
+    }
+
+    @Test
+    public void testRemove02() {
+        AVLTreeMap<Integer, Integer> map = new AVLTreeMap<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, i);
+        }
+        Node<Integer, Integer> root = map.root;
+        // Removing a node with two children relinks its successor in place.
+        Node<Integer, Integer> successor = map.iterativeSearch(root.key + 1);
+        assertEquals(root.value, map.remove(root.key));
+        assertTrue(map.root == successor);
+        assertEquals(null, root.parent);
+        assertEquals(null, map.get(root.key));
+        for (int i = 999; i >= 0; i -= 3) {
+            map.remove(i);
+            checkHeights(map.root);
+        }
+        assertEquals(null, map.remove(999));
+        assertEquals(665, map.size());
+    }
+
+    /**
+     * Integer key that counts the calls made to compareTo on any key.
+     */
+    @Test
+    public void testScaling01() throws Exception {
+        if (TreeMetrics.ENABLED) {
+            checkScaling();
+            return;
+        }
+        // Height lookups are only counted with TreeMetrics.ENABLED, which is
+        // fixed once TreeMetrics is loaded, so run checkScaling() through
+        // main() in a JVM started with the flag.
+        TreeMetricsTestCases.runWithMetrics(AVLTreeMapTestCases.class);
+    }
+
+    public static void main(String[] args) {
+        new AVLTreeMapTestCases().checkScaling();
+    }
+
+    /**
+     * Checks that rebalancing reads O(log n) node heights per put and remove.
+     * If balance() recomputed heights by walking subtrees instead of reading
+     * the cached ones, the lookups per operation would grow with n. Wall-clock
+     * time and larger sizes are left to MapBenchmark. Ascending keys rotate
+     * at almost every put. Only meaningful when TreeMetrics.ENABLED.
+     */
+    private void checkScaling() {
+        assertTrue(TreeMetrics.ENABLED);
+        TreeMetrics metrics = TreeMetrics.global();
+        for (int n = 1_000; n <= 1_000_000; n *= 10) {
+            AVLTreeMap<Integer, Boolean> map = new AVLTreeMap<>();
+            double log = Math.log(n + 2) / Math.log(2);
+            metrics.reset();
+            for (int i = 0; i < n; i++) {
+                map.put(i, Boolean.TRUE);
+            }
+            double perPut = (double) metrics.getHeightLookups() / n;
+            assertTrue(perPut <= LOOKUPS_PER_LEVEL * log,
+                    n + " keys: " + perPut + " height lookups per put");
+            assertTrue(map.height() <= 1.45 * log, n + " keys: height " + map.height());
+            metrics.reset();
+            for (int i = 0; i < n; i += 2) {
+                map.remove(i);
+            }
+            double perRemove = (double) metrics.getHeightLookups() / (n / 2);
+            assertTrue(perRemove <= LOOKUPS_PER_LEVEL * log,
+                    n + " keys: " + perRemove + " height lookups per remove");
+            assertEquals(n / 2, map.size());
+            assertTrue(map.height() <= 1.45 * log, n + " keys: height " + map.height());
+            if (n <= 100_000) {
+                checkHeights(map.root);
+            }
+        }
+    }
+
+    @Test
+    public void testIterators01() {
+        AVLTreeMap<Integer, Integer> map = new AVLTreeMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+        }
+        // Removing through the iterator rotates the tree under it.
+        java.util.Iterator<Integer> it = map.descendingKeyIterator();
+        for (int expected = 99; it.hasNext(); expected--) {
+            int key = it.next();
+            assertEquals(expected, key);
+            if (key % 3 != 0) {
+                it.remove();
+            }
+        }
+        assertEquals(34, map.size());
+        checkHeights(map.root);
+        int expected = 0;
+        for (Pair<Integer, Integer> pair : map) {
+            assertEquals(expected, pair.key);
+            expected += 3;
+        }
+    }
+
+    @Test
+    public void testFromPairs01() {
+        java.util.Random random = new java.util.Random(3134);
+        java.util.TreeMap<Integer, Integer> expected = new java.util.TreeMap<>();
+        Pair<Integer, Integer>[] pairs = new Pair[100_000];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = new Pair<>(random.nextInt(50_000), i);
+            expected.put(pairs[i].key, i);
+        }
+        AVLTreeMap<Integer, Integer> map = AVLTreeMap.fromPairs(pairs);
+        assertEquals(expected.size(), map.size());
+        checkHeights(map.root);
+        for (java.util.Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        // The loaded tree keeps balancing as usual afterwards.
+        for (int key = 0; key < 50_000; key += 7) {
+            map.remove(key);
+            map.put(key + 50_000, key);
+        }
+        checkHeights(map.root);
+    }
+
+    @Test
+    public void testParallelBuild01() {
+        Pair<Integer, Integer>[] pairs = new Pair[100_000];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = new Pair<>(i, i);
+        }
+        AVLTreeMap<Integer, Integer> parallel = new AVLTreeMap<>(pairs, true, true);
+        AVLTreeMap<Integer, Integer> sequential = new AVLTreeMap<>(pairs, true, false);
+        assertEquals(pairs.length, parallel.size());
+        assertEquals(pairs.length, parallel.root.size);
+        assertEquals(checkHeights(sequential.root), checkHeights(parallel.root));
+        assertEquals(sequential.preorder(), parallel.preorder());
+        for (int key = 0; key < pairs.length; key += 3) {
+            parallel.remove(key);
+        }
+        checkHeights(parallel.root);
+    }
+
+    @Test
+    public void testSetOperations01() {
+        AVLTreeMap<Integer, String> a = new AVLTreeMap<>(), b = new AVLTreeMap<>();
+        for (int key = 0; key < 10; key += 2) {
+            a.put(key, "a" + key);
+        }
+        for (int key = 0; key < 15; key += 3) {
+            b.put(key, "b" + key);
+        }
+        assertEquals("[<0, b0>, <2, a2>, <3, b3>, <4, a4>, <6, b6>, <8, a8>, <9, b9>, <12, b12>]",
+                a.union(b).toString());
+        assertEquals("[<0, a0>, <6, a6>]", a.intersection(b).toString());
+        assertEquals("[<2, a2>, <4, a4>, <8, a8>]", a.difference(b).toString());
+        assertEquals("[<3, b3>, <9, b9>, <12, b12>]", b.difference(a).toString());
+        // The inputs are left alone.
+        assertEquals(5, a.size());
+        assertEquals("a0", a.get(0));
+        assertEquals(0, a.union(b).difference(a.union(b)).size());
+    }
+
+    @Test
+    public void testSetOperations02() {
+        java.util.Random random = new java.util.Random(3134);
+        AVLTreeMap<Integer, Integer> a = new AVLTreeMap<>(), b = new AVLTreeMap<>();
+        java.util.TreeMap<Integer, Integer> union = new java.util.TreeMap<>();
+        java.util.TreeSet<Integer> aKeys = new java.util.TreeSet<>(), bKeys = new java.util.TreeSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(30_000);
+            if (random.nextBoolean()) {
+                a.put(key, i);
+                aKeys.add(key);
+                union.putIfAbsent(key, i);
+            } else {
+                b.put(key, -i);
+                bKeys.add(key);
+                union.put(key, -i);
+            }
+        }
+        AVLTreeMap<Integer, Integer> merged = a.union(b);
+        checkHeights(merged.root);
+        assertEquals(union.size(), merged.size());
+        for (java.util.Map.Entry<Integer, Integer> entry : union.entrySet()) {
+            assertEquals(bKeys.contains(entry.getKey()) ? b.get(entry.getKey()) : a.get(entry.getKey()),
+                    merged.get(entry.getKey()));
+        }
+        java.util.TreeSet<Integer> both = new java.util.TreeSet<>(aKeys);
+        both.retainAll(bKeys);
+        AVLTreeMap<Integer, Integer> intersection = a.intersection(b);
+        checkHeights(intersection.root);
+        assertEquals(both.size(), intersection.size());
+        AVLTreeMap<Integer, Integer> difference = a.difference(b);
+        checkHeights(difference.root);
+        assertEquals(aKeys.size() - both.size(), difference.size());
+        for (Integer key : both) {
+            assertEquals(a.get(key), intersection.get(key));
+            assertEquals(null, difference.get(key));
+        }
+    }
+
+    @Test
+    public void testBatch01() {
+        java.util.Random random = new java.util.Random(3134);
+        AVLTreeMap<Integer, Integer> map = new AVLTreeMap<>();
+        java.util.TreeMap<Integer, Integer> expected = new java.util.TreeMap<>();
+        for (int round = 0; round < 200; round++) {
+            // Batches range from a single key to several times the map's size.
+            int count = 1 + random.nextInt(round < 100 ? 50 : 5000);
+            if (random.nextInt(3) > 0) {
+                Pair<Integer, Integer>[] batch = new Pair[count];
+                for (int i = 0; i < count; i++) {
+                    batch[i] = new Pair<>(random.nextInt(20_000), round * 10_000 + i);
+                    expected.put(batch[i].key, batch[i].value);
+                }
+                map.putAll(batch);
+            } else {
+                Integer[] keys = new Integer[count];
+                for (int i = 0; i < count; i++) {
+                    keys[i] = random.nextInt(20_000);
+                    expected.remove(keys[i]);
+                }
+                map.removeAll(keys);
+            }
+            assertEquals(expected.size(), map.size());
+            checkHeights(map.root);
+        }
+        for (java.util.Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        Integer[] all = expected.keySet().toArray(new Integer[0]);
+        map.removeAll(all);
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testSplitJoin01() {
+        AVLTreeMap<Integer, Integer> map = new AVLTreeMap<>();
+        for (int key = 0; key < 1000; key++) {
+            map.put(key, -key);
+        }
+        AVLTreeMap<Integer, Integer> above = map.split(600);
+        checkHeights(map.root);
+        checkHeights(above.root);
+        assertEquals(600, map.size());
+        assertEquals(400, above.size());
+        assertEquals(599, map.lastKey());
+        assertEquals(600, above.firstKey());
+        assertEquals(-700, above.get(700));
+
+        // Splitting at a missing key, and past either end.
+        AVLTreeMap<Integer, Integer> top = above.split(950);
+        assertEquals(350, above.size());
+        assertEquals(0, top.split(2000).size());
+        assertEquals(50, top.size());
+        AVLTreeMap<Integer, Integer> all = map.split(-1);
+        assertTrue(map.isEmpty());
+        assertEquals(600, all.size());
+
+        // Joining trees of very different heights stays balanced.
+        AVLTreeMap<Integer, Integer> small = new AVLTreeMap<>();
+        small.put(2000, 0);
+        AVLTreeMap<Integer, Integer> joined = AVLTreeMap.join(AVLTreeMap.join(all, above), top);
+        joined = AVLTreeMap.join(joined, small);
+        checkHeights(joined.root);
+        assertEquals(1001, joined.size());
+        assertTrue(all.isEmpty());
+        assertTrue(small.isEmpty());
+        int expected = 0;
+        for (Pair<Integer, Integer> pair : joined) {
+            assertEquals(expected == 1000 ? 2000 : expected, pair.key);
+            expected++;
+        }
+        AVLTreeMap<Integer, Integer> lower = joined, upper = joined.split(500);
+        assertThrows(IllegalArgumentException.class, () -> AVLTreeMap.join(upper, lower));
+        assertEquals(500, lower.size());
+    }
+
+    @Test
+    public void testSplitJoin02() {
+        java.util.Random random = new java.util.Random(3134);
+        AVLTreeMap<Integer, Integer> map = new AVLTreeMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            map.put(random.nextInt(100_000), i);
+        }
+        int size = map.size();
+        for (int round = 0; round < 200; round++) {
+            int key = random.nextInt(100_000);
+            AVLTreeMap<Integer, Integer> above = map.split(key);
+            checkHeights(map.root);
+            checkHeights(above.root);
+            assertEquals(map.countInRange(Integer.MIN_VALUE, key - 1), map.size());
+            assertTrue(above.isEmpty() || above.firstKey() >= key);
+            assertTrue(map.isEmpty() || map.lastKey() < key);
+            map = AVLTreeMap.join(map, above);
+            assertEquals(size, map.size());
+        }
+        checkHeights(map.root);
+    }
+
+    @Test
+    public void testOrderStatistics01() {
+        AVLTreeMap<Integer, Integer> map = new AVLTreeMap<>();
+        java.util.TreeSet<Integer> expected = new java.util.TreeSet<>();
+        java.util.Random random = new java.util.Random(3134);
+        for (int i = 0; i < 3000; i++) {
+            int key = random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, key);
+                expected.add(key);
+            }
+        }
+        checkHeights(map.root);
+        Integer[] keys = expected.toArray(new Integer[0]);
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(keys[i], map.select(i));
+            assertEquals(i, map.rank(keys[i]));
+        }
+        assertEquals(expected.subSet(500, true, 1500, true).size(), map.countInRange(500, 1500));
+        assertEquals(expected.headSet(700).size(), map.headMap(700, false).size());
+    }
 }
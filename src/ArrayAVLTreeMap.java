@@ -0,0 +1,387 @@
+import java.util.Arrays;
+
+/**
+ * Class that implements an AVL tree which implements the MyMap interface,
+ * storing its nodes as parallel arrays instead of Node objects. Node i is
+ * described by keys[i], values[i], left[i], right[i], parent[i] and
+ * height[i], and links between nodes are array indices, with NIL standing in
+ * for null. Slots freed by remove are chained into a free list and reused by
+ * later insertions.
+ * @author Marissa Crevecoeur, mac2538
+ * @version 1.0 October 16, 2026
+ */
+public class ArrayAVLTreeMap<K extends Comparable<K>, V>
+        implements MyMap<K, V> {
+    private static final int ALLOWED_IMBALANCE = 1;
+    private static final int NIL = -1;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private Object[] keys, values;
+    private int[] left, right, parent, height;
+    private int root = NIL;
+    private int size;
+    // The first never-used slot, and the head of the free list of slots
+    // released by remove. Free slots are chained through left[].
+    private int top, free = NIL;
+
+    /**
+     * Creates an empty AVL tree map.
+     */
+    public ArrayAVLTreeMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty AVL tree map with room for capacity nodes before the
+     * arrays need to grow.
+     * @param capacity the initial number of node slots
+     */
+    public ArrayAVLTreeMap(int capacity) {
+        capacity = Math.max(capacity, 1);
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        parent = new int[capacity];
+        height = new int[capacity];
+    }
+
+    /**
+     * Creates an AVL tree map of the given key-value pairs. If sorted is true,
+     * a balanced tree will be created via a divide-and-conquer approach. If
+     * sorted is false, the pairs will be inserted in the order they are
+     * received.
+     * @param elements an array of key-value pairs
+     * @param sorted   whether elements is sorted by key
+     */
+    public ArrayAVLTreeMap(Pair<K, V>[] elements, boolean sorted) {
+        this(elements.length);
+        if (!sorted) {
+            for (Pair<K, V> pair : elements) {
+                put(pair.key, pair.value);
+            }
+        } else {
+            root = createBST(elements, 0, elements.length - 1);
+            if (root != NIL) {
+                parent[root] = NIL;
+            }
+        }
+    }
+
+    private int createBST(Pair<K, V>[] pairs, int low, int high) {
+        if (low > high) {
+            return NIL;
+        }
+        int mid = low + (high - low) / 2;
+        int n = allocate(pairs[mid].key, pairs[mid].value);
+        size++;
+        left[n] = createBST(pairs, low, mid - 1);
+        if (left[n] != NIL) {
+            parent[left[n]] = n;
+        }
+        right[n] = createBST(pairs, mid + 1, high);
+        if (right[n] != NIL) {
+            parent[right[n]] = n;
+        }
+        height[n] = Math.max(avlHeight(left[n]), avlHeight(right[n])) + 1;
+        return n;
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if this map contains no key-value mappings.
+     * @return true if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of node slots currently allocated, used or free.
+     * @return the capacity of the node arrays
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    private K key(int n) {
+        return (K) keys[n];
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int n) {
+        return (V) values[n];
+    }
+
+    private int search(K key) {
+        int current = root;
+        while (current != NIL) {
+            int comparison = key.compareTo(key(current));
+            if (comparison < 0) {
+                current = left[current];
+            } else if (comparison > 0) {
+                current = right[current];
+            } else {
+                return current;
+            }
+        }
+        return NIL;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key.
+     * @param  key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or null if this
+     *         map contains no mapping for the key
+     */
+    public V get(K key) {
+        int n = search(key);
+        return n != NIL ? value(n) : null;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map. If the
+     * map previously contained a mapping for the key, the old value is replaced
+     * by the specified value.
+     * @param key   the key with which the specified value is to be associated
+     * @param value the value to be associated with the specified key
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     */
+    public V put(K key, V value) {
+        int p = NIL, current = root, comparison = 0;
+        while (current != NIL) {
+            comparison = key.compareTo(key(current));
+            if (comparison == 0) {
+                V oldValue = value(current);
+                values[current] = value;
+                return oldValue;
+            }
+            p = current;
+            current = comparison < 0 ? left[current] : right[current];
+        }
+        int n = allocate(key, value);
+        parent[n] = p;
+        if (p == NIL) {
+            root = n;
+        } else if (comparison < 0) {
+            left[p] = n;
+        } else {
+            right[p] = n;
+        }
+        size++;
+        retrace(p);
+        return null;
+    }
+
+    /**
+     * Removes the mapping for a key from this map if it is present.
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     */
+    public V remove(K key) {
+        int z = search(key);
+        if (z == NIL) {
+            return null;
+        }
+        // The lowest node whose subtree lost a node.
+        int lowest;
+        if (left[z] == NIL || right[z] == NIL) {
+            lowest = parent[z];
+            transplant(z, left[z] != NIL ? left[z] : right[z]);
+        } else {
+            int y = right[z];
+            while (left[y] != NIL) {
+                y = left[y];
+            }
+            if (parent[y] != z) {
+                lowest = parent[y];
+                transplant(y, right[y]);
+                right[y] = right[z];
+                parent[right[y]] = y;
+            } else {
+                lowest = y;
+            }
+            transplant(z, y);
+            left[y] = left[z];
+            parent[left[y]] = y;
+            height[y] = height[z];
+        }
+        V oldValue = value(z);
+        release(z);
+        size--;
+        retrace(lowest);
+        return oldValue;
+    }
+
+    /**
+     * Returns the height of the tree. If the tree is null, the height is -1.
+     * @return the height of the tree
+     */
+    public int height() {
+        return avlHeight(root);
+    }
+
+    /**
+     * Takes a slot from the free list, or the next never-used slot, growing
+     * the arrays if they are full.
+     */
+    private int allocate(K key, V value) {
+        int n;
+        if (free != NIL) {
+            n = free;
+            free = left[n];
+        } else {
+            if (top == keys.length) {
+                grow();
+            }
+            n = top++;
+        }
+        keys[n] = key;
+        values[n] = value;
+        left[n] = right[n] = parent[n] = NIL;
+        height[n] = 0;
+        return n;
+    }
+
+    private void release(int n) {
+        // Clear the references so the key and value can be collected.
+        keys[n] = values[n] = null;
+        left[n] = free;
+        free = n;
+    }
+
+    private void grow() {
+        int capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        height = Arrays.copyOf(height, capacity);
+    }
+
+    private void transplant(int u, int v) {
+        int p = parent[u];
+        if (p == NIL) {
+            root = v;
+        } else if (u == left[p]) {
+            left[p] = v;
+        } else {
+            right[p] = v;
+        }
+        if (v != NIL) {
+            parent[v] = p;
+        }
+    }
+
+    /**
+     * Rebalances the tree from n up towards the root after an insertion or a
+     * removal, stopping once a subtree's height no longer changes.
+     * @param n the lowest node whose subtree changed
+     */
+    private void retrace(int n) {
+        while (n != NIL) {
+            int oldHeight = height[n];
+            n = balance(n);
+            if (height[n] == oldHeight) {
+                return;
+            }
+            n = parent[n];
+        }
+    }
+
+    private int balance(int t) {
+        if (avlHeight(left[t]) - avlHeight(right[t]) > ALLOWED_IMBALANCE) {
+            int l = left[t];
+            if (avlHeight(left[l]) < avlHeight(right[l])) {
+                rotateWithRightChild(l);
+            }
+            t = rotateWithLeftChild(t);
+        } else if (avlHeight(right[t]) - avlHeight(left[t])
+                > ALLOWED_IMBALANCE) {
+            int r = right[t];
+            if (avlHeight(right[r]) < avlHeight(left[r])) {
+                rotateWithLeftChild(r);
+            }
+            t = rotateWithRightChild(t);
+        }
+        height[t] = Math.max(avlHeight(left[t]), avlHeight(right[t])) + 1;
+        return t;
+    }
+
+    private int avlHeight(int t) {
+        return t == NIL ? -1 : height[t];
+    }
+
+    private int rotateWithLeftChild(int k2) {
+        int k1 = left[k2];
+        left[k2] = right[k1];
+        if (left[k2] != NIL) {
+            parent[left[k2]] = k2;
+        }
+        transplant(k2, k1);
+        right[k1] = k2;
+        parent[k2] = k1;
+        height[k2] = Math.max(avlHeight(left[k2]), avlHeight(right[k2])) + 1;
+        height[k1] = Math.max(avlHeight(left[k1]), height[k2]) + 1;
+        return k1;
+    }
+
+    private int rotateWithRightChild(int k1) {
+        int k2 = right[k1];
+        right[k1] = left[k2];
+        if (right[k1] != NIL) {
+            parent[right[k1]] = k1;
+        }
+        transplant(k1, k2);
+        left[k2] = k1;
+        parent[k1] = k2;
+        height[k1] = Math.max(avlHeight(left[k1]), avlHeight(right[k1])) + 1;
+        height[k2] = Math.max(avlHeight(right[k2]), height[k1]) + 1;
+        return k2;
+    }
+
+    /**
+     * Returns a String of the key-value pairs in ascending key order, in the
+     * same format as BSTMap.inorder().
+     * @return a String representation of the map
+     */
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        int n = root;
+        while (n != NIL && left[n] != NIL) {
+            n = left[n];
+        }
+        while (n != NIL) {
+            builder.append('<').append(keys[n]).append(", ").append(values[n])
+                   .append('>');
+            // Step to the successor along the parent links.
+            if (right[n] != NIL) {
+                n = right[n];
+                while (left[n] != NIL) {
+                    n = left[n];
+                }
+            } else {
+                while (parent[n] != NIL && n == right[parent[n]]) {
+                    n = parent[n];
+                }
+                n = parent[n];
+            }
+            if (n != NIL) {
+                builder.append(", ");
+            }
+        }
+        return builder.append(']').toString();
+    }
+}
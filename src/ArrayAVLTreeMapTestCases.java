@@ -0,0 +1,94 @@
+/**
+ * Test cases for ArrayAVLTreeMap.
+ */
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArrayAVLTreeMapTestCases {
+
+    @Test
+    public void testCreateBST01() {
+        Pair<Integer, Integer>[] pairs = new Pair[10];
+        for (int i = 0; i < 10; i++) {
+            pairs[i] = new Pair(i, i + 1);
+        }
+        ArrayAVLTreeMap<Integer, Integer> map = new ArrayAVLTreeMap<>(pairs, true);
+        assertEquals(10, map.size());
+        assertEquals(3, map.height());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i + 1, map.get(i));
+        }
+        assertNull(map.get(10));
+        assertEquals("[<0, 1>, <1, 2>, <2, 3>, <3, 4>, <4, 5>, <5, 6>, <6, 7>, <7, 8>, <8, 9>, <9, 10>]",
+                map.toString());
+    }
+
+    @Test
+    public void testFreeList01() {
+        ArrayAVLTreeMap<Integer, Integer> map = new ArrayAVLTreeMap<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, i);
+        }
+        int capacity = map.capacity();
+        for (int i = 0; i < 1000; i += 2) {
+            assertEquals(i, map.remove(i));
+        }
+        // Removed slots are reused before the arrays grow again.
+        for (int i = 1000; i < 1500; i++) {
+            map.put(i, i);
+        }
+        assertEquals(capacity, map.capacity());
+        assertEquals(1000, map.size());
+    }
+
+    private static Object field(ArrayAVLTreeMap<?, ?> map, String name) throws ReflectiveOperationException {
+        Field field = ArrayAVLTreeMap.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(map);
+    }
+
+    /**
+     * Checks every node of map with MapOracle.checkAVL(), reading the
+     * parallel arrays directly. Nodes are array indices, and NIL (-1) is
+     * read as null.
+     */
+    private static void checkNodes(ArrayAVLTreeMap<Integer, Integer> map) throws Exception {
+        int[] left = (int[]) field(map, "left"), right = (int[]) field(map, "right");
+        int[] parent = (int[]) field(map, "parent"), height = (int[]) field(map, "height");
+        Object[] keys = (Object[]) field(map, "keys");
+        int root = (int) field(map, "root");
+        MapOracle.checkAVL(root < 0 ? null : root, new MapOracle.Nodes<Integer, Integer>() {
+            public Integer left(Integer n) {
+                return left[n] < 0 ? null : left[n];
+            }
+
+            public Integer right(Integer n) {
+                return right[n] < 0 ? null : right[n];
+            }
+
+            public Integer parent(Integer n) {
+                return parent[n] < 0 ? null : parent[n];
+            }
+
+            public int height(Integer n) {
+                return height[n];
+            }
+
+            public Integer key(Integer n) {
+                return (Integer) keys[n];
+            }
+        });
+    }
+
+    @Test
+    public void testRandom01() throws Exception {
+        ArrayAVLTreeMap<Integer, Integer> map = new ArrayAVLTreeMap<>();
+        TreeMap<Integer, Integer> expected = MapOracle.run(map, 3134, 100_000, 5000, 0.5, 10_000,
+                key -> key, i -> i, e -> checkNodes(map));
+        assertEquals(MapOracle.inorder(expected), map.toString());
+    }
+}
@@ -0,0 +1,625 @@
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * Class that implements a B+ tree which implements the MyMap interface.
+ *
+ * Each node holds up to order - 1 keys in a sorted array, and an internal
+ * node has one more child than it has keys. Every mapping lives in a leaf;
+ * the keys of internal nodes only route searches, with keys equal to a
+ * separator found to its right. A search binary-searches one small array per
+ * level, so a tree of n keys is only about log(n) / log(order / 2) levels
+ * deep, and each level costs a few cache misses rather than one per
+ * comparison as in a binary tree. The leaves are linked left to right, so an
+ * ordered scan walks the leaves without going back up the tree.
+ *
+ * Every node other than the root holds at least (order - 1) / 2 keys. A node
+ * that overflows on put is split in two, and a node that underflows on
+ * remove borrows a key from a sibling or is merged with it. The path from the
+ * root is kept in small arrays during an update, so nodes need no parent
+ * pointers.
+ * @author Marissa Crevecoeur, mac2538
+ * @version 1.0 October 16, 2026
+ */
+public class BPlusTreeMap<K extends Comparable<K>, V>
+        implements MyMap<K, V>, Iterable<Pair<K, V>> {
+    public static final int DEFAULT_ORDER = 64;
+    private static final int MIN_ORDER = 3;
+
+    private final int order, minKeys;
+    private BNode root;
+    // The leftmost leaf. Merges always fold a node into its left sibling, so
+    // this leaf lives as long as the tree does.
+    private Leaf head;
+    // Levels of internal nodes above the leaves.
+    private int height;
+    private int size;
+    // Number of structural modifications, used to make iterators fail-fast.
+    private int modCount;
+    // The internal nodes on the path to the leaf being updated, and the index
+    // of the child taken at each. Reused by every put and remove, since the
+    // map is not meant to be shared between threads anyway.
+    private Inner[] path = new Inner[4];
+    private int[] slots = new int[4];
+
+    /**
+     * Creates an empty B+ tree map of the default order.
+     */
+    public BPlusTreeMap() {
+        this(DEFAULT_ORDER);
+    }
+
+    /**
+     * Creates an empty B+ tree map whose nodes have at most order children.
+     * @param order the fanout of the tree
+     * @throws IllegalArgumentException if order is less than 3
+     */
+    public BPlusTreeMap(int order) {
+        if (order < MIN_ORDER) {
+            throw new IllegalArgumentException(
+                    "Order must be at least " + MIN_ORDER + ".");
+        }
+        this.order = order;
+        this.minKeys = (order - 1) / 2;
+        root = head = new Leaf(order);
+    }
+
+    /**
+     * Creates a B+ tree map of the default order of the given key-value
+     * pairs. If sorted is true, the tree is built bottom-up from full leaves.
+     * If sorted is false, the pairs will be inserted in the order they are
+     * received.
+     * @param elements an array of key-value pairs
+     * @param sorted   whether elements is sorted by key
+     */
+    public BPlusTreeMap(Pair<K, V>[] elements, boolean sorted) {
+        this(elements, sorted, DEFAULT_ORDER);
+    }
+
+    /**
+     * Creates a B+ tree map of the given order of the given key-value pairs.
+     * If sorted is true, the tree is built bottom-up from full leaves. If
+     * sorted is false, the pairs will be inserted in the order they are
+     * received.
+     * @param elements an array of key-value pairs
+     * @param sorted   whether elements is sorted by key
+     * @param order    the fanout of the tree
+     * @throws IllegalArgumentException if order is less than 3
+     */
+    public BPlusTreeMap(Pair<K, V>[] elements, boolean sorted, int order) {
+        this(order);
+        if (!sorted) {
+            for (Pair<K, V> pair : elements) {
+                put(pair.key, pair.value);
+            }
+        } else if (elements.length > 0) {
+            bulkLoad(elements);
+        }
+    }
+
+    /**
+     * Builds the tree from pairs sorted by key in O(n) time. The pairs are
+     * spread evenly over as few leaves as will hold them, and each level of
+     * internal nodes is then built the same way over the level below it, so
+     * every node is at least half full.
+     */
+    private void bulkLoad(Pair<K, V>[] pairs) {
+        int n = pairs.length, maxKeys = order - 1;
+        int count = (n + maxKeys - 1) / maxKeys;
+        BNode[] level = new BNode[count];
+        // The smallest key below each node of the level, which becomes the
+        // separator in front of it one level up.
+        Object[] lows = new Object[count];
+        Leaf previous = null;
+        for (int j = 0, start = 0; j < count; j++) {
+            int end = (int) ((long) n * (j + 1) / count);
+            Leaf leaf = new Leaf(order);
+            for (int i = start; i < end; i++) {
+                leaf.keys[i - start] = pairs[i].key;
+                leaf.values[i - start] = pairs[i].value;
+            }
+            leaf.count = end - start;
+            if (previous == null) {
+                head = leaf;
+            } else {
+                previous.next = leaf;
+            }
+            previous = leaf;
+            level[j] = leaf;
+            lows[j] = leaf.keys[0];
+            start = end;
+        }
+        while (count > 1) {
+            int groups = (count + order - 1) / order;
+            for (int g = 0, start = 0; g < groups; g++) {
+                int end = (int) ((long) count * (g + 1) / groups);
+                Inner inner = new Inner(order);
+                System.arraycopy(level, start, inner.children, 0, end - start);
+                System.arraycopy(lows, start + 1, inner.keys, 0,
+                                 end - start - 1);
+                inner.count = end - start - 1;
+                level[g] = inner;
+                lows[g] = lows[start];
+                start = end;
+            }
+            count = groups;
+            height++;
+        }
+        root = level[0];
+        size = n;
+        growPath();
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if this map contains no key-value mappings.
+     * @return true if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the maximum number of children of a node of this tree.
+     * @return the order of the tree
+     */
+    public int order() {
+        return order;
+    }
+
+    /**
+     * Returns the height of the tree, counted in levels of internal nodes
+     * above the leaves. It is 0 while every mapping fits in a single leaf.
+     * @return the height of the tree
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Returns the index of the child of n whose subtree may hold key.
+     */
+    private static int childIndex(Inner n, Object key) {
+        int i = Arrays.binarySearch(n.keys, 0, n.count, key);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    private Leaf findLeaf(K key) {
+        BNode n = root;
+        for (int level = 0; level < height; level++) {
+            Inner inner = (Inner) n;
+            n = inner.children[childIndex(inner, key)];
+        }
+        return (Leaf) n;
+    }
+
+    /**
+     * Descends to the leaf that may hold key as findLeaf() does, recording
+     * the internal nodes and child indices on the way in path and slots.
+     */
+    private Leaf findLeafRecordingPath(K key) {
+        BNode n = root;
+        for (int level = 0; level < height; level++) {
+            Inner inner = (Inner) n;
+            path[level] = inner;
+            slots[level] = childIndex(inner, key);
+            n = inner.children[slots[level]];
+        }
+        return (Leaf) n;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key.
+     * @param  key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or null if this
+     *         map contains no mapping for the key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        Leaf leaf = findLeaf(key);
+        int i = Arrays.binarySearch(leaf.keys, 0, leaf.count, key);
+        return i >= 0 ? (V) leaf.values[i] : null;
+    }
+
+    /**
+     * Returns true if this map contains a mapping for the specified key.
+     * @param key the key whose presence is to be tested
+     * @return true if this map contains a mapping for the key
+     */
+    public boolean containsKey(K key) {
+        Leaf leaf = findLeaf(key);
+        return Arrays.binarySearch(leaf.keys, 0, leaf.count, key) >= 0;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map. If the
+     * map previously contained a mapping for the key, the old value is replaced
+     * by the specified value. A leaf that overflows is split in two, and the
+     * first key of the new right half is added to the parent, which may in
+     * turn split, up to the root.
+     * @param key   the key with which the specified value is to be associated
+     * @param value the value to be associated with the specified key
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     */
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        Leaf leaf = findLeafRecordingPath(key);
+        int i = Arrays.binarySearch(leaf.keys, 0, leaf.count, key);
+        if (i >= 0) {
+            V oldValue = (V) leaf.values[i];
+            leaf.values[i] = value;
+            return oldValue;
+        }
+        i = -i - 1;
+        insertAt(leaf.keys, leaf.count, i, key);
+        insertAt(leaf.values, leaf.count, i, value);
+        leaf.count++;
+        size++;
+        modCount++;
+        if (leaf.count < order) {
+            return null;
+        }
+        BNode right = splitLeaf(leaf);
+        Object separator = right.keys[0];
+        for (int level = height - 1; level >= 0; level--) {
+            Inner parent = path[level];
+            int slot = slots[level];
+            insertAt(parent.keys, parent.count, slot, separator);
+            insertAt(parent.children, parent.count + 1, slot + 1, right);
+            parent.count++;
+            if (parent.count < order) {
+                return null;
+            }
+            separator = parent.keys[parent.count / 2];
+            right = splitInner(parent);
+        }
+        Inner newRoot = new Inner(order);
+        newRoot.keys[0] = separator;
+        newRoot.children[0] = root;
+        newRoot.children[1] = right;
+        newRoot.count = 1;
+        root = newRoot;
+        height++;
+        growPath();
+        return null;
+    }
+
+    /**
+     * Moves the upper half of a full leaf into a new leaf linked in after it.
+     * @return the new leaf
+     */
+    private Leaf splitLeaf(Leaf leaf) {
+        int mid = leaf.count / 2;
+        Leaf right = new Leaf(order);
+        right.count = leaf.count - mid;
+        System.arraycopy(leaf.keys, mid, right.keys, 0, right.count);
+        System.arraycopy(leaf.values, mid, right.values, 0, right.count);
+        Arrays.fill(leaf.keys, mid, leaf.count, null);
+        Arrays.fill(leaf.values, mid, leaf.count, null);
+        leaf.count = mid;
+        right.next = leaf.next;
+        leaf.next = right;
+        return right;
+    }
+
+    /**
+     * Moves the keys and children above the middle key of a full internal
+     * node into a new node. The middle key itself moves up to the parent,
+     * so the caller must read it before calling this.
+     * @return the new node
+     */
+    private Inner splitInner(Inner n) {
+        int mid = n.count / 2;
+        Inner right = new Inner(order);
+        right.count = n.count - mid - 1;
+        System.arraycopy(n.keys, mid + 1, right.keys, 0, right.count);
+        System.arraycopy(n.children, mid + 1, right.children, 0,
+                         right.count + 1);
+        Arrays.fill(n.keys, mid, n.count, null);
+        Arrays.fill(n.children, mid + 1, n.count + 1, null);
+        n.count = mid;
+        return right;
+    }
+
+    /**
+     * Removes the mapping for a key from this map if it is present. A node
+     * left with fewer than the minimum number of keys takes one from a
+     * sibling that can spare it, or else is merged with a sibling, which
+     * removes a key from the parent and may leave it short in turn. When the
+     * root is left with a single child, that child becomes the root.
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        Leaf leaf = findLeafRecordingPath(key);
+        int i = Arrays.binarySearch(leaf.keys, 0, leaf.count, key);
+        if (i < 0) {
+            return null;
+        }
+        V oldValue = (V) leaf.values[i];
+        removeAt(leaf.keys, leaf.count, i);
+        removeAt(leaf.values, leaf.count, i);
+        leaf.count--;
+        size--;
+        modCount++;
+        BNode n = leaf;
+        for (int level = height - 1; level >= 0 && n.count < minKeys; level--) {
+            n = path[level];
+            rebalance(path[level], slots[level]);
+        }
+        if (height > 0 && root.count == 0) {
+            root = ((Inner) root).children[0];
+            height--;
+        }
+        return oldValue;
+    }
+
+    /**
+     * Brings the child at index i of parent, which has one key too few, back
+     * to the minimum.
+     */
+    private void rebalance(Inner parent, int i) {
+        if (i > 0 && parent.children[i - 1].count > minKeys) {
+            borrowFromLeft(parent, i);
+        } else if (i < parent.count
+                   && parent.children[i + 1].count > minKeys) {
+            borrowFromRight(parent, i);
+        } else if (i > 0) {
+            merge(parent, i - 1);
+        } else {
+            merge(parent, i);
+        }
+    }
+
+    private void borrowFromLeft(Inner parent, int i) {
+        if (parent.children[i] instanceof Leaf) {
+            Leaf child = (Leaf) parent.children[i];
+            Leaf left = (Leaf) parent.children[i - 1];
+            insertAt(child.keys, child.count, 0, left.keys[left.count - 1]);
+            insertAt(child.values, child.count, 0,
+                     left.values[left.count - 1]);
+            child.count++;
+            removeAt(left.keys, left.count, left.count - 1);
+            removeAt(left.values, left.count, left.count - 1);
+            left.count--;
+            parent.keys[i - 1] = child.keys[0];
+        } else {
+            // The separator comes down into the child and the left
+            // sibling's last key goes up in its place.
+            Inner child = (Inner) parent.children[i];
+            Inner left = (Inner) parent.children[i - 1];
+            insertAt(child.keys, child.count, 0, parent.keys[i - 1]);
+            insertAt(child.children, child.count + 1, 0,
+                     left.children[left.count]);
+            child.count++;
+            parent.keys[i - 1] = left.keys[left.count - 1];
+            removeAt(left.keys, left.count, left.count - 1);
+            removeAt(left.children, left.count + 1, left.count);
+            left.count--;
+        }
+    }
+
+    private void borrowFromRight(Inner parent, int i) {
+        if (parent.children[i] instanceof Leaf) {
+            Leaf child = (Leaf) parent.children[i];
+            Leaf right = (Leaf) parent.children[i + 1];
+            child.keys[child.count] = right.keys[0];
+            child.values[child.count] = right.values[0];
+            child.count++;
+            removeAt(right.keys, right.count, 0);
+            removeAt(right.values, right.count, 0);
+            right.count--;
+            parent.keys[i] = right.keys[0];
+        } else {
+            Inner child = (Inner) parent.children[i];
+            Inner right = (Inner) parent.children[i + 1];
+            child.keys[child.count] = parent.keys[i];
+            child.children[child.count + 1] = right.children[0];
+            child.count++;
+            parent.keys[i] = right.keys[0];
+            removeAt(right.keys, right.count, 0);
+            removeAt(right.children, right.count + 1, 0);
+            right.count--;
+        }
+    }
+
+    /**
+     * Folds the child at index k + 1 of parent into the child at index k, and
+     * removes the separator between them from parent.
+     */
+    private void merge(Inner parent, int k) {
+        BNode left = parent.children[k], right = parent.children[k + 1];
+        if (left instanceof Leaf) {
+            Leaf l = (Leaf) left, r = (Leaf) right;
+            System.arraycopy(r.keys, 0, l.keys, l.count, r.count);
+            System.arraycopy(r.values, 0, l.values, l.count, r.count);
+            l.count += r.count;
+            l.next = r.next;
+        } else {
+            Inner l = (Inner) left, r = (Inner) right;
+            l.keys[l.count] = parent.keys[k];
+            System.arraycopy(r.keys, 0, l.keys, l.count + 1, r.count);
+            System.arraycopy(r.children, 0, l.children, l.count + 1,
+                             r.count + 1);
+            l.count += r.count + 1;
+        }
+        removeAt(parent.keys, parent.count, k);
+        removeAt(parent.children, parent.count + 1, k + 1);
+        parent.count--;
+    }
+
+    private static void insertAt(Object[] a, int count, int i, Object x) {
+        System.arraycopy(a, i, a, i + 1, count - i);
+        a[i] = x;
+    }
+
+    private static void removeAt(Object[] a, int count, int i) {
+        System.arraycopy(a, i + 1, a, i, count - i - 1);
+        a[count - 1] = null;
+    }
+
+    /**
+     * Makes sure path and slots have room for every level of the tree.
+     */
+    private void growPath() {
+        if (height > path.length) {
+            path = new Inner[2 * height];
+            slots = new int[2 * height];
+        }
+    }
+
+    /**
+     * Returns the smallest key in this map, or null if the map is empty.
+     * @return the smallest key in this map
+     */
+    @SuppressWarnings("unchecked")
+    public K firstKey() {
+        return size == 0 ? null : (K) head.keys[0];
+    }
+
+    /**
+     * Returns the largest key in this map, or null if the map is empty.
+     * @return the largest key in this map
+     */
+    @SuppressWarnings("unchecked")
+    public K lastKey() {
+        if (size == 0) {
+            return null;
+        }
+        BNode n = root;
+        for (int level = 0; level < height; level++) {
+            n = ((Inner) n).children[n.count];
+        }
+        return (K) n.keys[n.count - 1];
+    }
+
+    /**
+     * Passes each mapping with lo <= key <= hi to action in ascending key
+     * order. One descent finds the first key, and the scan then runs along
+     * the linked leaves.
+     * @param lo     the low end of the range, inclusive
+     * @param hi     the high end of the range, inclusive
+     * @param action the action to apply to each key and value
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachInRange(K lo, K hi,
+                               BiConsumer<? super K, ? super V> action) {
+        Leaf leaf = findLeaf(lo);
+        int i = Arrays.binarySearch(leaf.keys, 0, leaf.count, lo);
+        i = i >= 0 ? i : -i - 1;
+        int expectedModCount = modCount;
+        for (; leaf != null; leaf = leaf.next, i = 0) {
+            for (; i < leaf.count; i++) {
+                K key = (K) leaf.keys[i];
+                if (key.compareTo(hi) > 0) {
+                    return;
+                }
+                action.accept(key, (V) leaf.values[i]);
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns an iterator over the key-value pairs in ascending key order,
+     * walking the linked leaves. The iterator is fail-fast: any structural
+     * modification of the map makes the next call throw a
+     * ConcurrentModificationException.
+     * @return an iterator over the key-value pairs of this map
+     */
+    public Iterator<Pair<K, V>> iterator() {
+        return new Iterator<Pair<K, V>>() {
+            private Leaf leaf = size == 0 ? null : head;
+            private int index;
+            private final int expectedModCount = modCount;
+
+            public boolean hasNext() {
+                return leaf != null;
+            }
+
+            @SuppressWarnings("unchecked")
+            public Pair<K, V> next() {
+                if (leaf == null) {
+                    throw new NoSuchElementException();
+                }
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                Pair<K, V> pair = new Pair<>((K) leaf.keys[index],
+                                             (V) leaf.values[index]);
+                if (++index == leaf.count) {
+                    leaf = leaf.next;
+                    index = 0;
+                }
+                return pair;
+            }
+        };
+    }
+
+    /**
+     * Returns a String of the key-value pairs in ascending key order, in the
+     * same format as BSTMap.inorder().
+     * @return a String representation of the map
+     */
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (Leaf leaf = head; leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.count; i++) {
+                if (builder.length() > 1) {
+                    builder.append(", ");
+                }
+                builder.append('<').append(leaf.keys[i]).append(", ")
+                       .append(leaf.values[i]).append('>');
+            }
+        }
+        return builder.append(']').toString();
+    }
+
+    /**
+     * Node of a BPlusTreeMap. Its arrays have room for one key more than a
+     * node may hold, so that a node can overflow before it is split.
+     */
+    private abstract static class BNode {
+        final Object[] keys;
+        int count;
+
+        BNode(int order) {
+            keys = new Object[order];
+        }
+    }
+
+    private static final class Leaf extends BNode {
+        final Object[] values;
+        Leaf next;
+
+        Leaf(int order) {
+            super(order);
+            values = new Object[order];
+        }
+    }
+
+    private static final class Inner extends BNode {
+        final BNode[] children;
+
+        Inner(int order) {
+            super(order);
+            children = new BNode[order + 1];
+        }
+    }
+}
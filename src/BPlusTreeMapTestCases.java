@@ -0,0 +1,180 @@
+/**
+ * Test cases for BPlusTreeMap.
+ */
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BPlusTreeMapTestCases {
+
+    private static void assertSameMappings(TreeMap<Integer, Integer> expected,
+                                           BPlusTreeMap<Integer, Integer> map) {
+        assertEquals(expected.size(), map.size());
+        Iterator<Map.Entry<Integer, Integer>> entries = expected.entrySet().iterator();
+        for (Pair<Integer, Integer> pair : map) {
+            Map.Entry<Integer, Integer> entry = entries.next();
+            assertEquals(entry.getKey(), pair.key);
+            assertEquals(entry.getValue(), pair.value);
+        }
+        assertFalse(entries.hasNext());
+    }
+
+    @Test
+    public void testPutRemove01() {
+        BPlusTreeMap<Integer, String> map = new BPlusTreeMap<>(4);
+        assertEquals("[]", map.toString());
+        assertTrue(map.isEmpty());
+        assertNull(map.firstKey());
+        assertNull(map.remove(1));
+        for (int key = 0; key < 20; key++) {
+            assertNull(map.put(key, "v" + key));
+        }
+        assertTrue(map.height() > 1);
+        assertEquals("v5", map.put(5, "w"));
+        assertEquals("w", map.get(5));
+        assertNull(map.get(20));
+        assertEquals(0, map.firstKey());
+        assertEquals(19, map.lastKey());
+        for (int key = 0; key < 20; key++) {
+            assertTrue(map.containsKey(key));
+            assertEquals(key == 5 ? "w" : "v" + key, map.remove(key));
+            assertFalse(map.containsKey(key));
+        }
+        assertTrue(map.isEmpty());
+        assertEquals(0, map.height());
+        assertEquals("[]", map.toString());
+        assertThrows(IllegalArgumentException.class, () -> new BPlusTreeMap<Integer, Integer>(2));
+    }
+
+    private static Object field(Object object, String name) throws ReflectiveOperationException {
+        for (Class<?> c = object.getClass(); ; c = c.getSuperclass()) {
+            try {
+                Field field = c.getDeclaredField(name);
+                field.setAccessible(true);
+                return field.get(object);
+            } catch (NoSuchFieldException e) {
+                if (c.getSuperclass() == null) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that every node of map other than the root holds between
+     * (order - 1) / 2 and order - 1 keys, that the keys are in order and
+     * within the range their parent routes to them, that every leaf is at
+     * the same depth, and that the leaves are linked left to right.
+     */
+    private static void checkNodes(BPlusTreeMap<Integer, Integer> map) throws Exception {
+        List<Object> leaves = new ArrayList<>();
+        checkNode(map, field(map, "root"), (int) field(map, "height"), true, null, null, leaves);
+        for (int i = 0; i < leaves.size(); i++) {
+            Object next = i + 1 < leaves.size() ? leaves.get(i + 1) : null;
+            assertSame(next, field(leaves.get(i), "next"), "bad leaf link at leaf " + i);
+        }
+    }
+
+    private static void checkNode(BPlusTreeMap<Integer, Integer> map, Object n, int depth,
+                                  boolean isRoot, Integer low, Integer high, List<Object> leaves)
+            throws Exception {
+        Object[] keys = (Object[]) field(n, "keys");
+        int count = (int) field(n, "count");
+        assertTrue(count <= map.order() - 1, "overfull node at " + keys[0]);
+        assertTrue(isRoot || count >= (map.order() - 1) / 2, "underfull node at " + keys[0]);
+        for (int i = 0; i < count; i++) {
+            Integer key = (Integer) keys[i];
+            assertTrue(i == 0 || key > (Integer) keys[i - 1], "out of order at " + key);
+            assertTrue((low == null || key >= low) && (high == null || key < high),
+                    "out of range at " + key);
+        }
+        if (depth == 0) {
+            assertEquals("Leaf", n.getClass().getSimpleName(), "leaves at different depths");
+            leaves.add(n);
+            return;
+        }
+        Object[] children = (Object[]) field(n, "children");
+        assertTrue(!isRoot || count >= 1, "empty inner root");
+        for (int i = 0; i <= count; i++) {
+            checkNode(map, children[i], depth - 1, false,
+                    i == 0 ? low : (Integer) keys[i - 1], i == count ? high : (Integer) keys[i],
+                    leaves);
+        }
+    }
+
+    @Test
+    public void testRandom01() throws Exception {
+        for (int order : new int[] {3, 4, 5, 16, 64}) {
+            BPlusTreeMap<Integer, Integer> map = new BPlusTreeMap<>(order);
+            TreeMap<Integer, Integer> expected = MapOracle.run(map, order, 30_000, 2000, 0.5, 3000,
+                    key -> key, i -> i, e -> checkNodes(map));
+            assertSameMappings(expected, map);
+            assertEquals(expected.firstKey(), map.firstKey());
+            assertEquals(expected.lastKey(), map.lastKey());
+            // Drain the map so that every merge path down to an empty root
+            // leaf is taken.
+            for (int key = 0; key < 2000; key++) {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertTrue(map.isEmpty());
+            assertEquals(0, map.height());
+            checkNodes(map);
+        }
+    }
+
+    @Test
+    public void testSorted01() {
+        for (int n = 0; n <= 200; n++) {
+            Pair<Integer, Integer>[] pairs = new Pair[n];
+            TreeMap<Integer, Integer> expected = new TreeMap<>();
+            for (int i = 0; i < n; i++) {
+                pairs[i] = new Pair(2 * i, i);
+                expected.put(2 * i, i);
+            }
+            BPlusTreeMap<Integer, Integer> map = new BPlusTreeMap<>(pairs, true, 3);
+            assertSameMappings(expected, map);
+            for (int i = 0; i < n; i++) {
+                assertEquals(i, map.get(2 * i));
+                assertNull(map.get(2 * i + 1));
+            }
+            // The built tree must take further updates like any other.
+            for (int i = 0; i < n; i += 3) {
+                map.put(2 * i + 1, -i);
+                expected.put(2 * i + 1, -i);
+                map.remove(2 * i);
+                expected.remove(2 * i);
+            }
+            assertSameMappings(expected, map);
+        }
+    }
+
+    @Test
+    public void testRange01() {
+        Pair<Integer, Integer>[] pairs = new Pair[1000];
+        for (int i = 0; i < 1000; i++) {
+            pairs[i] = new Pair(2 * i, i);
+        }
+        BPlusTreeMap<Integer, Integer> map = new BPlusTreeMap<>(pairs, true, 8);
+        StringBuilder builder = new StringBuilder();
+        map.forEachInRange(9, 17, (k, v) -> builder.append(k).append('=').append(v).append(' '));
+        assertEquals("10=5 12=6 14=7 16=8 ", builder.toString());
+        int[] count = {0};
+        map.forEachInRange(-5, 5000, (k, v) -> count[0]++);
+        assertEquals(1000, count[0]);
+        map.forEachInRange(1999, 5000, (k, v) -> fail("Unexpected key " + k));
+        assertThrows(ConcurrentModificationException.class,
+                     () -> map.forEachInRange(0, 100, (k, v) -> map.put(k + 1, v)));
+        Iterator<Pair<Integer, Integer>> it = map.iterator();
+        it.next();
+        map.remove(4);
+        assertThrows(ConcurrentModificationException.class, it::next);
+    }
+}
@@ -1,13 +1,41 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+
 /**
  * Class that implements a binary search tree which implements the MyMap
  * interface.
  * @author Marissa Crevecoeur, mac2538
  * @version 1.0 October 29, 2022
  */
-public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
+public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V>,
+        Iterable<Pair<K, V>> {
     public static final int PREORDER = 1, INORDER = 2, POSTORDER = 3;
+    // Subtrees with fewer pairs than this are built sequentially by a
+    // parallel build, so that each task does enough work to pay for itself.
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
     protected Node<K, V> root;
     protected int size;
+    // Number of structural modifications, used to make iterators fail-fast.
+    protected int modCount;
+    // Nodes visited by the current put or remove; only kept up to date when
+    // TreeMetrics.ENABLED. A get counts into a local variable instead, so
+    // that concurrent readers never write to the map.
+    protected int pathLength;
+    // height() and sumLevels() as of modCount == metricsModCount.
+    private int cachedHeight, cachedSumLevels, metricsModCount = -1;
 
     // need to make sure that all parent pointers are referred to properly from child up
     /**
@@ -36,16 +64,93 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
             insertElements(elements);
         } else {
             root = createBST(elements, 0, elements.length - 1);
+            size = elements.length;
         }
     }
 
+    /**
+     * Creates a binary search tree map of the given key-value pairs. If
+     * sorted is true, a balanced tree will be created, and if parallel is
+     * also true, its subtrees will be built in parallel on the common
+     * ForkJoinPool. If sorted is false, the pairs will be inserted in the
+     * order they are received.
+     * @param elements an array of key-value pairs
+     * @param sorted   whether elements is sorted by key
+     * @param parallel whether to build a sorted tree in parallel
+     */
+    public BSTMap(Pair<K, V>[] elements, boolean sorted, boolean parallel) {
+        if (!sorted) {
+            insertElements(elements);
+        } else if (parallel) {
+            root = ForkJoinPool.commonPool().invoke(
+                    new BuildTask(elements, 0, elements.length - 1));
+            size = elements.length;
+        } else {
+            root = createBST(elements, 0, elements.length - 1);
+            size = elements.length;
+        }
+    }
+
+    /**
+     * Creates a balanced binary search tree map of the given key-value pairs,
+     * which may be in any order. The pairs are sorted by key, with a parallel
+     * sort for large inputs, and if a key appears more than once the last of
+     * its pairs wins, as it would with repeated calls to put. The tree is then
+     * built in one pass by createBST, so the whole load is O(n log n) with no
+     * per-key descent. The given array is not modified.
+     * @param elements an array of key-value pairs in any order
+     * @return a balanced map of the pairs
+     */
+    public static <K extends Comparable<K>, V> BSTMap<K, V> fromPairs(
+            Pair<K, V>[] elements) {
+        BSTMap<K, V> map = new BSTMap<>();
+        map.bulkLoad(elements);
+        return map;
+    }
+
+    /**
+     * Builds this map, which must be empty, from pairs in any order. See
+     * fromPairs().
+     * @param elements an array of key-value pairs in any order
+     */
+    protected void bulkLoad(Pair<K, V>[] elements) {
+        Pair<K, V>[] pairs = sortedUnique(elements);
+        root = createBST(pairs, 0, pairs.length - 1);
+        size = pairs.length;
+        modCount++;
+    }
+
+    /**
+     * Returns a copy of elements sorted by key, with a parallel sort for large
+     * inputs, keeping only the last pair for each key.
+     * @param elements an array of key-value pairs in any order
+     * @return the distinct pairs of elements sorted by key
+     */
+    private static <K extends Comparable<K>, V> Pair<K, V>[] sortedUnique(
+            Pair<K, V>[] elements) {
+        Pair<K, V>[] pairs = elements.clone();
+        // Arrays.parallelSort is stable, so pairs with equal keys keep their
+        // input order and the last one is the one to keep.
+        Arrays.parallelSort(pairs, (a, b) -> a.key.compareTo(b.key));
+        int n = 0;
+        for (Pair<K, V> pair : pairs) {
+            if (n > 0 && pairs[n - 1].key.compareTo(pair.key) == 0) {
+                pairs[n - 1] = pair;
+            } else {
+                pairs[n++] = pair;
+            }
+        }
+        return n == pairs.length ? pairs : Arrays.copyOf(pairs, n);
+    }
+
     /**
      * Recursively constructs a balanced binary search tree by inserting the
      * elements via a divide-and-conquer approach. The middle element in the
      * array becomes the root. The middle of the left half becomes the root's
      * left child. The middle element of the right half becomes the root's right
      * child. This process continues until low > high, at which point the
-     * method returns a null Node.
+     * method returns a null Node. The caller sets size, since the number of
+     * nodes built is high - low + 1.
      * @param pairs an array of <K, V> pairs sorted by key
      * @param low   the low index of the array of elements
      * @param high  the high index of the array of elements
@@ -58,17 +163,61 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
         }
         int mid = low + (high-low)/2;
         Node<K, V> current = new Node(pairs[mid].key,pairs[mid].value);
-        size++;
+        attach(current, createBST(pairs, low, mid - 1),
+               createBST(pairs, mid + 1, high));
+        return current;
+    }
 
-        current.left = createBST(pairs,low, mid-1);
-        if(current.left != null){
-            current.left.parent = current;
+    /**
+     * Makes left and right the children of n and recomputes the values n
+     * caches about its subtree. Subclasses that cache more, such as an AVL
+     * tree's heights, extend this.
+     * @param n     the node to link the children to
+     * @param left  the new left child of n, or null
+     * @param right the new right child of n, or null
+     */
+    protected void attach(Node<K, V> n, Node<K, V> left, Node<K, V> right) {
+        n.left = left;
+        if (left != null) {
+            left.parent = n;
         }
-        current.right = createBST(pairs, mid+1, high);
-        if(current.right != null){
-            current.right.parent = current;
+        n.right = right;
+        if (right != null) {
+            right.parent = n;
+        }
+        updateSize(n);
+    }
+
+    /**
+     * Builds the subtree of pairs[low..high] as createBST does, but forks the
+     * left half off as a separate task while building the right half, down to
+     * PARALLEL_THRESHOLD pairs. The tasks share no mutable state: each links
+     * only the nodes it created, and the size is set once by the caller.
+     */
+    private class BuildTask extends RecursiveTask<Node<K, V>> {
+        private static final long serialVersionUID = 1L;
+        private final Pair<K, V>[] pairs;
+        private final int low, high;
+
+        BuildTask(Pair<K, V>[] pairs, int low, int high) {
+            this.pairs = pairs;
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        protected Node<K, V> compute() {
+            if (high - low + 1 < PARALLEL_THRESHOLD) {
+                return createBST(pairs, low, high);
+            }
+            int mid = low + (high - low) / 2;
+            Node<K, V> n = new Node<>(pairs[mid].key, pairs[mid].value);
+            BuildTask left = new BuildTask(pairs, low, mid - 1);
+            left.fork();
+            Node<K, V> right = new BuildTask(pairs, mid + 1, high).compute();
+            attach(n, left.join(), right);
+            return n;
         }
-        return current;
     }
 
     /**
@@ -217,6 +366,124 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
         return nodesVisited;
     }
 
+    /**
+     * Passes the key and value of every mapping to action, in the order of a
+     * PREORDER, INORDER or POSTORDER traversal. Unlike preorder(), inorder()
+     * and postorder(), this builds no String and does not recurse: it walks
+     * the parent pointers from node to node, so it allocates nothing per node
+     * and cannot overflow the stack on a degenerate tree. The action must not
+     * change the structure of the map.
+     * @param type   PREORDER, INORDER or POSTORDER
+     * @param action the action to apply to each key and value
+     * @throws IllegalArgumentException if type is not a traversal type
+     * @throws ConcurrentModificationException if the action changes the
+     *         structure of the map
+     */
+    public void traverse(int type, BiConsumer<? super K, ? super V> action) {
+        if (type != PREORDER && type != INORDER && type != POSTORDER) {
+            throw new IllegalArgumentException("Unknown traversal type.");
+        }
+        int expectedModCount = modCount;
+        Node<K, V> n = firstInTraversal(type);
+        while (n != null) {
+            action.accept(n.key, n.value);
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            n = nextInTraversal(type, n);
+        }
+    }
+
+    /**
+     * Passes the key and value of every mapping to action in ascending key
+     * order, without allocating. Same as traverse(INORDER, action).
+     * @param action the action to apply to each key and value
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        traverse(INORDER, action);
+    }
+
+    /**
+     * Writes the key-value pairs visited by a PREORDER, INORDER or POSTORDER
+     * traversal to out, in the same format as preorder(), inorder() and
+     * postorder(). The pairs are appended one at a time as the traversal
+     * reaches them, so no String of the whole tree is ever built and the
+     * memory used stays constant however large the map is. Pass a buffered
+     * Writer to have the output written in chunks.
+     * @param type PREORDER, INORDER or POSTORDER
+     * @param out  where to write the traversal
+     * @throws IOException if out throws one
+     * @throws IllegalArgumentException if type is not a traversal type
+     */
+    public void writeTraversal(int type, Appendable out) throws IOException {
+        if (type != PREORDER && type != INORDER && type != POSTORDER) {
+            throw new IllegalArgumentException("Unknown traversal type.");
+        }
+        int expectedModCount = modCount;
+        out.append('[');
+        Node<K, V> n = firstInTraversal(type);
+        while (n != null) {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            out.append('<').append(String.valueOf(n.key)).append(", ")
+               .append(String.valueOf(n.value)).append('>');
+            n = nextInTraversal(type, n);
+            if (n != null) {
+                out.append(", ");
+            }
+        }
+        out.append(']');
+    }
+
+    private Node<K, V> firstInTraversal(int type) {
+        if (root == null || type == PREORDER) {
+            return root;
+        }
+        return type == INORDER ? treeMinimum(root) : firstInPostorder(root);
+    }
+
+    private Node<K, V> nextInTraversal(int type, Node<K, V> n) {
+        if (type == INORDER) {
+            return successor(n);
+        }
+        if (type == PREORDER) {
+            if (n.left != null) {
+                return n.left;
+            }
+            if (n.right != null) {
+                return n.right;
+            }
+            // Climb until there is a right subtree not yet visited.
+            while (n.parent != null
+                    && (n == n.parent.right || n.parent.right == null)) {
+                n = n.parent;
+            }
+            return n.parent == null ? null : n.parent.right;
+        }
+        Node<K, V> parent = n.parent;
+        if (parent != null && n == parent.left && parent.right != null) {
+            return firstInPostorder(parent.right);
+        }
+        return parent;
+    }
+
+    /**
+     * Returns the first node of a postorder traversal of the subtree at n,
+     * the leaf reached by going left whenever possible and right otherwise.
+     */
+    private Node<K, V> firstInPostorder(Node<K, V> n) {
+        while (true) {
+            if (n.left != null) {
+                n = n.left;
+            } else if (n.right != null) {
+                n = n.right;
+            } else {
+                return n;
+            }
+        }
+    }
+
     /**
      * Returns the value to which the specified key is mapped, or null if this
      * map contains no mapping for the key.
@@ -225,8 +492,26 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
      *         map contains no mapping for the key
      */
     public V get(K key) {
-        Node<K, V> x = iterativeSearch(key);
-        return x != null ? x.value : null;
+        if (!TreeMetrics.ENABLED) {
+            Node<K, V> x = iterativeSearch(key);
+            return x != null ? x.value : null;
+        }
+        long start = startTiming();
+        int nodesVisited = 0;
+        Node<K, V> current = root;
+        while (current != null) {
+            nodesVisited++;
+            int comparison = key.compareTo(current.key);
+            if (comparison < 0) {
+                current = current.left;
+            } else if (comparison > 0) {
+                current = current.right;
+            } else {
+                break;
+            }
+        }
+        stopTiming(TreeMetrics.GET, nodesVisited, start);
+        return current != null ? current.value : null;
     }
 
     /**
@@ -235,26 +520,48 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
      * @param key key whose mapping is to be removed from the map
      * @return a reference to the Node containing the specified key
      */
-    private Node<K, V> iterativeSearch(K key) {
+    protected Node<K, V> iterativeSearch(K key) {
         // TODO
-        Node<K,V> current = root;
-        if(size == 0){
-            return root;
-        }
-        while(current != null){
-            if(current.key.compareTo(key) > 0){
-                current = current.left;
+        Node<K, V> current = root;
+        while (current != null) {
+            if (TreeMetrics.ENABLED) {
+                pathLength++;
             }
-            else if(current.key.compareTo(key) <0 ){
+            int comparison = key.compareTo(current.key);
+            if (comparison < 0) {
+                current = current.left;
+            } else if (comparison > 0) {
                 current = current.right;
-            }
-            else{
+            } else {
                 return current;
             }
         }
         return null;
     }
 
+    /**
+     * Starts measuring a get, put or remove if TreeMetrics is enabled.
+     * Otherwise this and stopTiming() compile away to nothing.
+     * @return the start time to pass to stopTiming()
+     */
+    protected final long startTiming() {
+        return TreeMetrics.ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the path length and latency of the operation started by
+     * startTiming() if TreeMetrics is enabled.
+     * @param op           TreeMetrics.GET, PUT or REMOVE
+     * @param nodesVisited the number of nodes on the operation's path
+     * @param start        the value returned by startTiming()
+     */
+    protected final void stopTiming(int op, int nodesVisited, long start) {
+        if (TreeMetrics.ENABLED) {
+            TreeMetrics.global().record(op, nodesVisited,
+                                        System.nanoTime() - start);
+        }
+    }
+
     /**
      * Associates the specified value with the specified key in this map. If the
      * map previously contained a mapping for the key, the old value is replaced
@@ -277,40 +584,56 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
      *         mapping for key
      */
     public V put(K key, V value) {
-        // TODO
-        Node<K, V> newN = new Node(key, value);
-        Node<K,V> is = iterativeSearch(key);
-        if(root == null){
-            root = newN;
-            size++;
-            return null;
+        long start = startTiming();
+        if (TreeMetrics.ENABLED) {
+            pathLength = 0;
         }
-        if(is != null){
-            V oldV = is.value;
-            is.value = newN.value;
-            is.key = newN.key;
-            return oldV;
-        }
-        Node<K, V> current = root;
-        while(true) {
-            if (current.key.compareTo(newN.key) > 0) {
-                if(current.left == null){
-                    current.left = newN;
-                    newN.parent = current;
-                    ++size;
-                    break;
-                }
-                 current = current.left;
-            }
-            else if (current.key.compareTo(newN.key) < 0) {
-                if(current.right == null){
-                    current.right = newN;
-                    newN.parent = current;
-                    ++size;
-                    break; }
-                current = current.right;
+        V oldValue = insert(key, value);
+        stopTiming(TreeMetrics.PUT, pathLength, start);
+        return oldValue;
+    }
+
+    /**
+     * Does the work of put(). Subclasses with their own insertion and
+     * rebalancing override this rather than put(), so that every put is
+     * measured the same way.
+     * @param key   the key with which the specified value is to be associated
+     * @param value the value to be associated with the specified key
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     */
+    protected V insert(K key, V value) {
+        // Descend once, comparing once per level, and only allocate a Node
+        // when a new leaf is actually attached.
+        Node<K, V> parent = null, current = root;
+        int comparison = 0;
+        while (current != null) {
+            if (TreeMetrics.ENABLED) {
+                pathLength++;
             }
+            comparison = key.compareTo(current.key);
+            if (comparison == 0) {
+                V oldV = current.value;
+                current.value = value;
+                return oldV;
+            }
+            parent = current;
+            current = comparison < 0 ? current.left : current.right;
+        }
+        Node<K, V> newN = new Node<>(key, value);
+        newN.parent = parent;
+        if (parent == null) {
+            root = newN;
+        } else if (comparison < 0) {
+            parent.left = newN;
+        } else {
+            parent.right = newN;
         }
+        for (; parent != null; parent = parent.parent) {
+            parent.size++;
+        }
+        size++;
+        modCount++;
         return null;
     }
 
@@ -321,18 +644,39 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
      *         mapping for key
      */
     public V remove(K key) {
+        long start = startTiming();
+        if (TreeMetrics.ENABLED) {
+            pathLength = 0;
+        }
+        V oldValue = delete(key);
+        stopTiming(TreeMetrics.REMOVE, pathLength, start);
+        return oldValue;
+    }
+
+    /**
+     * Does the work of remove(). Subclasses override this rather than
+     * remove(), as with insert().
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     */
+    protected V delete(K key) {
         // TODO
         Node<K, V> z = iterativeSearch(key);
         if (z == null) {
             return null;
         }
+        // The lowest node whose subtree lost a node.
+        Node<K, V> lowest = z.parent;
         if (z.left == null) {
             transplant(z, z.right);}
         else if (z.right == null) {
             transplant(z, z.left);
         } else {
             Node<K, V> y = treeMinimum(z.right);
+            lowest = y;
             if (y.parent != z) {
+                lowest = y.parent;
                 transplant(y, y.right);
                 y.right = z.right;
                 y.right.parent = y;
@@ -341,10 +685,246 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
             y.left = z.left;
             y.left.parent = y;
         }
+        updateSizes(lowest);
         size--;
+        modCount++;
         return z.value;
     }
 
+    /**
+     * Puts all of the given pairs into this map in a single descent of the
+     * tree. The result is the same as calling put on each pair in turn, so
+     * the last pair wins for a key that appears more than once. The batch is
+     * sorted and pushed down the tree together: at each node it is split
+     * around the node's key, and only subtrees that receive part of the batch
+     * are visited, each once. Where part of the batch falls off the tree it is
+     * built into a balanced subtree by createBST(), and each visited node is
+     * relinked to its new children once, through join(). The descent keeps
+     * its own stack rather than recursing, so it is safe on a tree of any
+     * height.
+     * @param batch an array of key-value pairs in any order
+     */
+    public void putAll(Pair<K, V>[] batch) {
+        if (batch.length == 0) {
+            return;
+        }
+        Pair<K, V>[] pairs = sortedUnique(batch);
+        int oldSize = size;
+        root = putAll(root, pairs, 0, pairs.length - 1);
+        root.parent = null;
+        // Like put(), replacing values alone does not disturb iterators.
+        if (size != oldSize) {
+            modCount++;
+        }
+    }
+
+    private Node<K, V> putAll(Node<K, V> t, Pair<K, V>[] pairs, int low,
+                              int high) {
+        ArrayDeque<BatchFrame<K, V>> stack = new ArrayDeque<>();
+        while (true) {
+            if (t != null && low <= high) {
+                int i = indexOf(pairs, low, high, t.key);
+                int split = i >= 0 ? i : -i - 1;
+                if (i >= 0) {
+                    t.value = pairs[i].value;
+                }
+                stack.push(new BatchFrame<>(t, i >= 0 ? i + 1 : split, high,
+                                            false));
+                high = split - 1;
+                t = t.left;
+                continue;
+            }
+            if (t == null && low <= high) {
+                size += high - low + 1;
+                t = createBST(pairs, low, high);
+            }
+            t = unwind(stack, t);
+            BatchFrame<K, V> frame = stack.peek();
+            if (frame == null) {
+                return t;
+            }
+            frame.descendRight(t);
+            low = frame.low;
+            high = frame.high;
+            t = frame.node.right;
+        }
+    }
+
+    /**
+     * Removes the mappings for all of the given keys that are present. The
+     * keys are sorted and pushed down the tree together, as in putAll(), so
+     * each affected node is visited and relinked once per batch.
+     * @param keys the keys whose mappings are to be removed, in any order
+     */
+    public void removeAll(K[] keys) {
+        if (keys.length == 0 || root == null) {
+            return;
+        }
+        K[] sorted = keys.clone();
+        Arrays.parallelSort(sorted);
+        int oldSize = size;
+        root = removeAll(root, sorted, 0, sorted.length - 1);
+        if (root != null) {
+            root.parent = null;
+        }
+        if (size != oldSize) {
+            modCount++;
+        }
+    }
+
+    private Node<K, V> removeAll(Node<K, V> t, K[] keys, int low, int high) {
+        ArrayDeque<BatchFrame<K, V>> stack = new ArrayDeque<>();
+        while (true) {
+            if (t != null && low <= high) {
+                int i = indexOf(keys, low, high, t.key);
+                int split = i >= 0 ? i : -i - 1;
+                // Duplicates of t.key in the batch sit next to i.
+                int next = split;
+                while (next <= high && keys[next].compareTo(t.key) == 0) {
+                    next++;
+                }
+                stack.push(new BatchFrame<>(t, next, high, i >= 0));
+                high = split - 1;
+                t = t.left;
+                continue;
+            }
+            t = unwind(stack, t);
+            BatchFrame<K, V> frame = stack.peek();
+            if (frame == null) {
+                return t;
+            }
+            frame.descendRight(t);
+            low = frame.low;
+            high = frame.high;
+            t = frame.node.right;
+        }
+    }
+
+    /**
+     * A node visited by putAll() or removeAll(), kept on their stack until
+     * both of its new subtrees are done.
+     */
+    private static final class BatchFrame<K, V> {
+        final Node<K, V> node;
+        // The part of the batch that goes to the right subtree.
+        final int low, high;
+        // Whether node itself is to be removed.
+        final boolean removed;
+        Node<K, V> left;
+        boolean leftDone;
+
+        BatchFrame(Node<K, V> node, int low, int high, boolean removed) {
+            this.node = node;
+            this.low = low;
+            this.high = high;
+            this.removed = removed;
+        }
+
+        void descendRight(Node<K, V> left) {
+            this.left = left;
+            leftDone = true;
+        }
+    }
+
+    /**
+     * Pops every frame of stack whose left subtree is done, taking done as
+     * its right subtree, and returns the subtree that results.
+     */
+    private Node<K, V> unwind(ArrayDeque<BatchFrame<K, V>> stack,
+                              Node<K, V> done) {
+        BatchFrame<K, V> frame;
+        while ((frame = stack.peek()) != null && frame.leftDone) {
+            stack.pop();
+            if (!frame.removed) {
+                done = join(frame.left, frame.node, done);
+                continue;
+            }
+            size--;
+            if (frame.left != null) {
+                // Join the two halves around the largest node of the left
+                // half.
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                Node<K, V>[] last = new Node[1];
+                Node<K, V> left = removeLast(frame.left, last);
+                done = join(left, last[0], done);
+            }
+        }
+        return done;
+    }
+
+    /**
+     * Takes the node with the largest key out of the subtree t, storing it in
+     * last[0], and returns what remains of the subtree. The right spine of t
+     * is walked with an explicit stack, so any height of subtree is safe.
+     */
+    protected Node<K, V> removeLast(Node<K, V> t, Node<K, V>[] last) {
+        ArrayDeque<Node<K, V>> spine = new ArrayDeque<>();
+        while (t.right != null) {
+            spine.push(t);
+            t = t.right;
+        }
+        last[0] = t;
+        Node<K, V> rest = t.left;
+        while (!spine.isEmpty()) {
+            Node<K, V> n = spine.pop();
+            rest = join(n.left, n, rest);
+        }
+        return rest;
+    }
+
+    /**
+     * Returns the root of a tree holding left, then pivot, then right, where
+     * every key in left is less than pivot's key and every key in right is
+     * greater. A plain binary search tree simply makes left and right the
+     * children of pivot; balanced trees override this to rebalance when the
+     * two sides differ in height.
+     * @param left  the subtree of keys below pivot, or null
+     * @param pivot the node joining the two subtrees
+     * @param right the subtree of keys above pivot, or null
+     * @return the root of the joined tree
+     */
+    protected Node<K, V> join(Node<K, V> left, Node<K, V> pivot,
+                              Node<K, V> right) {
+        attach(pivot, left, right);
+        return pivot;
+    }
+
+    /**
+     * Returns the index of key in pairs[low..high], which is sorted by key,
+     * or (-(insertion point) - 1) if it is absent, like Arrays.binarySearch.
+     */
+    private int indexOf(Pair<K, V>[] pairs, int low, int high, K key) {
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int comparison = pairs[mid].key.compareTo(key);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+
+    /**
+     * Returns the index of the first occurrence of key in keys[low..high],
+     * which is sorted, or (-(insertion point) - 1) if it is absent.
+     */
+    private int indexOf(K[] keys, int low, int high, K key) {
+        int last = high;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low <= last && keys[low].compareTo(key) == 0 ? low : -low - 1;
+    }
+
     protected void transplant(Node<K, V> u, Node<K, V> v) {
         if (u.parent == null) {
             root = v;
@@ -371,6 +951,646 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
         return x;
     }
 
+    /**
+     * Returns the number of nodes in the subtree rooted at n.
+     * @param n the root of the subtree
+     * @return the number of nodes in the subtree, or 0 if n is null
+     */
+    protected static int subtreeSize(Node<?, ?> n) {
+        return n == null ? 0 : n.size;
+    }
+
+    /**
+     * Recomputes the subtree size of n from the sizes of its children.
+     * @param n the Node whose size is updated
+     */
+    protected void updateSize(Node<K, V> n) {
+        n.size = 1 + subtreeSize(n.left) + subtreeSize(n.right);
+    }
+
+    /**
+     * Recomputes the subtree sizes of n and of every ancestor of n.
+     * @param n the lowest Node whose subtree changed
+     */
+    protected void updateSizes(Node<K, V> n) {
+        for (; n != null; n = n.parent) {
+            updateSize(n);
+        }
+    }
+
+    /**
+     * Returns the number of keys in this map that are strictly less than the
+     * given key. The key itself need not be in the map. Runs in time
+     * proportional to the height of the tree.
+     * @param key the key whose rank is returned
+     * @return the number of keys less than key
+     */
+    public int rank(K key) {
+        return rank(key, false);
+    }
+
+    /**
+     * Returns the number of keys less than (or, if inclusive, equal to) key.
+     */
+    private int rank(K key, boolean inclusive) {
+        int rank = 0;
+        Node<K, V> current = root;
+        while (current != null) {
+            int comparison = key.compareTo(current.key);
+            if (comparison < 0) {
+                current = current.left;
+            } else if (comparison > 0) {
+                rank += 1 + subtreeSize(current.left);
+                current = current.right;
+            } else {
+                return rank + subtreeSize(current.left) + (inclusive ? 1 : 0);
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the key with the given rank, that is, the key that would be at
+     * the given index in an inorder traversal. Runs in time proportional to
+     * the height of the tree.
+     * @param index the zero-based rank of the key to return
+     * @return the key with rank index
+     * @throws IndexOutOfBoundsException if index is not in [0, size())
+     */
+    public K select(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index
+                    + ", Size: " + size);
+        }
+        Node<K, V> current = root;
+        while (true) {
+            int leftSize = subtreeSize(current.left);
+            if (index < leftSize) {
+                current = current.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                current = current.right;
+            } else {
+                return current.key;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of keys k in this map with lo <= k <= hi. Runs in
+     * time proportional to the height of the tree.
+     * @param lo the low end of the range, inclusive
+     * @param hi the high end of the range, inclusive
+     * @return the number of keys in the range
+     */
+    public int countInRange(K lo, K hi) {
+        if (lo.compareTo(hi) > 0) {
+            return 0;
+        }
+        return rank(hi, true) - rank(lo, false);
+    }
+
+    /**
+     * Returns a reference to the Node whose key value is the maximum key in the
+     * tree.
+     * @param x the Node at which to start the traversal
+     * @return a reference to the Node whose key value is the maximum key in the
+     *         tree
+     */
+    protected Node<K, V> treeMaximum(Node<K, V> x) {
+        while (x.right != null) {
+            x = x.right;
+        }
+        return x;
+    }
+
+    /**
+     * Returns the Node with the next larger key, or null if x holds the largest
+     * key. Walks the parent pointers, so no stack is needed.
+     * @param x the Node whose successor is returned
+     * @return the Node with the next larger key
+     */
+    protected Node<K, V> successor(Node<K, V> x) {
+        if (x.right != null) {
+            return treeMinimum(x.right);
+        }
+        Node<K, V> y = x.parent;
+        while (y != null && x == y.right) {
+            x = y;
+            y = y.parent;
+        }
+        return y;
+    }
+
+    /**
+     * Returns the Node with the next smaller key, or null if x holds the
+     * smallest key. Walks the parent pointers, so no stack is needed.
+     * @param x the Node whose predecessor is returned
+     * @return the Node with the next smaller key
+     */
+    protected Node<K, V> predecessor(Node<K, V> x) {
+        if (x.left != null) {
+            return treeMaximum(x.left);
+        }
+        Node<K, V> y = x.parent;
+        while (y != null && x == y.left) {
+            x = y;
+            y = y.parent;
+        }
+        return y;
+    }
+
+    /**
+     * Returns an iterator over the key-value mappings in ascending key order.
+     * Each Pair is a snapshot of the mapping when it was returned.
+     * @return an iterator over the key-value mappings in ascending key order
+     */
+    public Iterator<Pair<K, V>> iterator() {
+        return entryIterator();
+    }
+
+    /**
+     * Returns a spliterator over the key-value mappings in ascending key
+     * order.
+     * @return a spliterator over the key-value mappings
+     */
+    public Spliterator<Pair<K, V>> spliterator() {
+        return Spliterators.spliterator(entryIterator(), size,
+                Spliterator.ORDERED | Spliterator.DISTINCT
+                | Spliterator.NONNULL);
+    }
+
+    /**
+     * Returns an iterator over the key-value mappings in ascending key order.
+     * @return an iterator over the key-value mappings in ascending key order
+     */
+    public Iterator<Pair<K, V>> entryIterator() {
+        return new EntryIterator(first(), false, null);
+    }
+
+    /**
+     * Returns an iterator over the key-value mappings in descending key order.
+     * @return an iterator over the key-value mappings in descending key order
+     */
+    public Iterator<Pair<K, V>> descendingEntryIterator() {
+        return new EntryIterator(last(), true, null);
+    }
+
+    /**
+     * Returns an iterator over the keys in ascending order.
+     * @return an iterator over the keys in ascending order
+     */
+    public Iterator<K> keyIterator() {
+        return new KeyIterator(first(), false, null);
+    }
+
+    /**
+     * Returns an iterator over the keys in descending order.
+     * @return an iterator over the keys in descending order
+     */
+    public Iterator<K> descendingKeyIterator() {
+        return new KeyIterator(last(), true, null);
+    }
+
+    /**
+     * Returns a spliterator over the keys in ascending order.
+     * @return a spliterator over the keys in ascending order
+     */
+    public Spliterator<K> keySpliterator() {
+        return Spliterators.spliterator(keyIterator(), size,
+                Spliterator.ORDERED | Spliterator.SORTED
+                | Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    /**
+     * Returns an iterator over the values in ascending order of their keys.
+     * @return an iterator over the values in ascending order of their keys
+     */
+    public Iterator<V> valueIterator() {
+        return new ValueIterator(first(), false, null);
+    }
+
+    /**
+     * Returns the mappings of this map as a new array of pairs in ascending
+     * key order, the form createBST() builds from. Takes O(n) time.
+     * @return the mappings of this map sorted by key
+     */
+    protected Pair<K, V>[] toPairs() {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Pair<K, V>[] pairs = new Pair[size];
+        int i = 0;
+        for (Node<K, V> n = first(); n != null; n = successor(n)) {
+            pairs[i++] = new Pair<>(n.key, n.value);
+        }
+        return pairs;
+    }
+
+    private Node<K, V> first() {
+        return root == null ? null : treeMinimum(root);
+    }
+
+    private Node<K, V> last() {
+        return root == null ? null : treeMaximum(root);
+    }
+
+    private static <K> K keyOf(Node<K, ?> n) {
+        return n == null ? null : n.key;
+    }
+
+    /**
+     * Returns the Node with the least key greater than (or, if inclusive,
+     * equal to) the given key, or null if there is no such Node.
+     * @param key       the key to search for
+     * @param inclusive whether a Node holding key itself may be returned
+     * @return the Node with the least key above key
+     */
+    protected Node<K, V> ceilingNode(K key, boolean inclusive) {
+        Node<K, V> current = root, candidate = null;
+        while (current != null) {
+            int comparison = key.compareTo(current.key);
+            if (comparison == 0 && inclusive) {
+                return current;
+            }
+            if (comparison < 0) {
+                candidate = current;
+                current = current.left;
+            } else {
+                current = current.right;
+            }
+        }
+        return candidate;
+    }
+
+    /**
+     * Returns the Node with the greatest key less than (or, if inclusive,
+     * equal to) the given key, or null if there is no such Node.
+     * @param key       the key to search for
+     * @param inclusive whether a Node holding key itself may be returned
+     * @return the Node with the greatest key below key
+     */
+    protected Node<K, V> floorNode(K key, boolean inclusive) {
+        Node<K, V> current = root, candidate = null;
+        while (current != null) {
+            int comparison = key.compareTo(current.key);
+            if (comparison == 0 && inclusive) {
+                return current;
+            }
+            if (comparison > 0) {
+                candidate = current;
+                current = current.right;
+            } else {
+                current = current.left;
+            }
+        }
+        return candidate;
+    }
+
+    /**
+     * Returns the smallest key in this map, or null if the map is empty.
+     * @return the smallest key in this map
+     */
+    public K firstKey() {
+        return keyOf(first());
+    }
+
+    /**
+     * Returns the largest key in this map, or null if the map is empty.
+     * @return the largest key in this map
+     */
+    public K lastKey() {
+        return keyOf(last());
+    }
+
+    /**
+     * Returns the greatest key less than or equal to the given key, or null if
+     * there is no such key.
+     * @param key the key to search for
+     * @return the greatest key less than or equal to key
+     */
+    public K floorKey(K key) {
+        return keyOf(floorNode(key, true));
+    }
+
+    /**
+     * Returns the least key greater than or equal to the given key, or null if
+     * there is no such key.
+     * @param key the key to search for
+     * @return the least key greater than or equal to key
+     */
+    public K ceilingKey(K key) {
+        return keyOf(ceilingNode(key, true));
+    }
+
+    /**
+     * Returns the greatest key strictly less than the given key, or null if
+     * there is no such key.
+     * @param key the key to search for
+     * @return the greatest key strictly less than key
+     */
+    public K lowerKey(K key) {
+        return keyOf(floorNode(key, false));
+    }
+
+    /**
+     * Returns the least key strictly greater than the given key, or null if
+     * there is no such key.
+     * @param key the key to search for
+     * @return the least key strictly greater than key
+     */
+    public K higherKey(K key) {
+        return keyOf(ceilingNode(key, false));
+    }
+
+    /**
+     * Returns a view of the portion of this map whose keys range from fromKey
+     * to toKey. The view is backed by this map and is evaluated lazily: no
+     * mappings are copied, and lookups descend this tree directly.
+     * @param fromKey       the low end of the keys in the view
+     * @param fromInclusive true if fromKey is to be included in the view
+     * @param toKey         the high end of the keys in the view
+     * @param toInclusive   true if toKey is to be included in the view
+     * @return a view of the mappings from fromKey to toKey
+     */
+    public SubMap subMap(K fromKey, boolean fromInclusive, K toKey,
+                         boolean toInclusive) {
+        if (fromKey.compareTo(toKey) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        return new SubMap(fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    /**
+     * Returns a view of the portion of this map whose keys are less than (or
+     * equal to, if inclusive is true) toKey.
+     * @param toKey     the high end of the keys in the view
+     * @param inclusive true if toKey is to be included in the view
+     * @return a view of the mappings below toKey
+     */
+    public SubMap headMap(K toKey, boolean inclusive) {
+        return new SubMap(null, false, toKey, inclusive);
+    }
+
+    /**
+     * Returns a view of the portion of this map whose keys are greater than
+     * (or equal to, if inclusive is true) fromKey.
+     * @param fromKey   the low end of the keys in the view
+     * @param inclusive true if fromKey is to be included in the view
+     * @return a view of the mappings above fromKey
+     */
+    public SubMap tailMap(K fromKey, boolean inclusive) {
+        return new SubMap(fromKey, inclusive, null, false);
+    }
+
+    /**
+     * A range of keys in the enclosing map, viewed as a map of its own. Reads
+     * and writes go straight through to the enclosing map. A null bound means
+     * the range is unbounded on that side.
+     */
+    public class SubMap implements MyMap<K, V>, Iterable<Pair<K, V>> {
+        private final K lo, hi;
+        private final boolean loInclusive, hiInclusive;
+
+        SubMap(K lo, boolean loInclusive, K hi, boolean hiInclusive) {
+            this.lo = lo;
+            this.loInclusive = loInclusive;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+        }
+
+        private boolean tooLow(K key) {
+            if (lo == null) {
+                return false;
+            }
+            int comparison = key.compareTo(lo);
+            return comparison < 0 || (comparison == 0 && !loInclusive);
+        }
+
+        private boolean tooHigh(K key) {
+            if (hi == null) {
+                return false;
+            }
+            int comparison = key.compareTo(hi);
+            return comparison > 0 || (comparison == 0 && !hiInclusive);
+        }
+
+        boolean inRange(K key) {
+            return !tooLow(key) && !tooHigh(key);
+        }
+
+        private Node<K, V> lowest() {
+            Node<K, V> n = lo == null ? first() : ceilingNode(lo, loInclusive);
+            return n == null || tooHigh(n.key) ? null : n;
+        }
+
+        private Node<K, V> highest() {
+            Node<K, V> n = hi == null ? last() : floorNode(hi, hiInclusive);
+            return n == null || tooLow(n.key) ? null : n;
+        }
+
+        /**
+         * Returns the number of mappings in this range. Computed from the
+         * subtree sizes, so this is O(log n) rather than a walk of the range.
+         * @return the number of mappings in this range
+         */
+        public int size() {
+            int below = lo == null ? 0 : rank(lo, !loInclusive);
+            int upTo = hi == null ? size : rank(hi, hiInclusive);
+            return Math.max(0, upTo - below);
+        }
+
+        public boolean isEmpty() {
+            return lowest() == null;
+        }
+
+        public V get(K key) {
+            return inRange(key) ? BSTMap.this.get(key) : null;
+        }
+
+        /**
+         * Associates the value with the key in the enclosing map.
+         * @throws IllegalArgumentException if key is outside this range
+         */
+        public V put(K key, V value) {
+            if (!inRange(key)) {
+                throw new IllegalArgumentException("Key out of range.");
+            }
+            return BSTMap.this.put(key, value);
+        }
+
+        public V remove(K key) {
+            return inRange(key) ? BSTMap.this.remove(key) : null;
+        }
+
+        /**
+         * Returns the smallest key in this range, or null if the range is empty.
+         * @return the smallest key in this range
+         */
+        public K firstKey() {
+            return keyOf(lowest());
+        }
+
+        /**
+         * Returns the largest key in this range, or null if the range is empty.
+         * @return the largest key in this range
+         */
+        public K lastKey() {
+            return keyOf(highest());
+        }
+
+        /**
+         * Returns the greatest key in this range less than or equal to the
+         * given key, or null if there is no such key.
+         * @param key the key to search for
+         * @return the greatest key in this range less than or equal to key
+         */
+        public K floorKey(K key) {
+            if (tooLow(key)) {
+                return null;
+            }
+            if (tooHigh(key)) {
+                return lastKey();
+            }
+            Node<K, V> n = floorNode(key, true);
+            return n == null || tooLow(n.key) ? null : n.key;
+        }
+
+        /**
+         * Returns the least key in this range greater than or equal to the
+         * given key, or null if there is no such key.
+         * @param key the key to search for
+         * @return the least key in this range greater than or equal to key
+         */
+        public K ceilingKey(K key) {
+            if (tooHigh(key)) {
+                return null;
+            }
+            if (tooLow(key)) {
+                return firstKey();
+            }
+            Node<K, V> n = ceilingNode(key, true);
+            return n == null || tooHigh(n.key) ? null : n.key;
+        }
+
+        public Iterator<Pair<K, V>> iterator() {
+            return new EntryIterator(lowest(), false, this);
+        }
+
+        public Iterator<K> keyIterator() {
+            return new KeyIterator(lowest(), false, this);
+        }
+
+        public Iterator<K> descendingKeyIterator() {
+            return new KeyIterator(highest(), true, this);
+        }
+
+        public Iterator<V> valueIterator() {
+            return new ValueIterator(lowest(), false, this);
+        }
+
+        /**
+         * Returns a String of the mappings in this range in ascending key
+         * order, in the same format as inorder().
+         * @return a String of the mappings in this range
+         */
+        public String toString() {
+            StringBuilder builder = new StringBuilder("[");
+            for (Iterator<Pair<K, V>> it = iterator(); it.hasNext(); ) {
+                Pair<K, V> pair = it.next();
+                builder.append('<').append(pair.key).append(", ")
+                       .append(pair.value).append('>');
+                if (it.hasNext()) {
+                    builder.append(", ");
+                }
+            }
+            return builder.append(']').toString();
+        }
+    }
+
+    /**
+     * Base class for the iterators. It steps from node to node with
+     * successor() or predecessor(), so it needs O(1) extra memory. The
+     * iterator is fail-fast: any structural modification of the map other
+     * than through the iterator's own remove() makes the next call throw a
+     * ConcurrentModificationException. If range is not null, iteration
+     * stops at the first key outside of it.
+     */
+    private abstract class TreeIterator<T> implements Iterator<T> {
+        private Node<K, V> next, lastReturned;
+        private final boolean descending;
+        private final SubMap range;
+        private int expectedModCount = modCount;
+
+        TreeIterator(Node<K, V> first, boolean descending, SubMap range) {
+            this.next = first;
+            this.descending = descending;
+            this.range = range;
+        }
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        Node<K, V> nextNode() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            lastReturned = next;
+            next = descending ? predecessor(next) : successor(next);
+            if (next != null && range != null && !range.inRange(next.key)) {
+                next = null;
+            }
+            return lastReturned;
+        }
+
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            // Removal relinks nodes rather than copying keys between them, so
+            // the node held in next is still the right one to visit.
+            BSTMap.this.remove(lastReturned.key);
+            expectedModCount = modCount;
+            lastReturned = null;
+        }
+    }
+
+    private class EntryIterator extends TreeIterator<Pair<K, V>> {
+        EntryIterator(Node<K, V> first, boolean descending, SubMap range) {
+            super(first, descending, range);
+        }
+
+        public Pair<K, V> next() {
+            Node<K, V> n = nextNode();
+            return new Pair<>(n.key, n.value);
+        }
+    }
+
+    private class KeyIterator extends TreeIterator<K> {
+        KeyIterator(Node<K, V> first, boolean descending, SubMap range) {
+            super(first, descending, range);
+        }
+
+        public K next() {
+            return nextNode().key;
+        }
+    }
+
+    private class ValueIterator extends TreeIterator<V> {
+        ValueIterator(Node<K, V> first, boolean descending, SubMap range) {
+            super(first, descending, range);
+        }
+
+        public V next() {
+            return nextNode().value;
+        }
+    }
+
     /**
      * Returns a String representation of the tree, where the Nodes are visited
      * with an inorder traversal.
@@ -391,55 +1611,56 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
         return printer.toString();
     }
 
+    /**
+     * Prints a traversal of the tree to System.out, streamed through a
+     * buffered Writer with writeTraversal() rather than built as one String.
+     * @param type PREORDER, INORDER or POSTORDER; anything else prints nothing
+     */
     public void printTraversal(int type) {
+        String label;
         switch (type) {
             case PREORDER:
-                System.out.print("Preorder traversal:       ");
-                System.out.println(preorder());
+                label = "Preorder traversal:       ";
                 break;
             case INORDER:
-                System.out.print("Inorder traversal:        ");
-                System.out.println(inorder());
+                label = "Inorder traversal:        ";
                 break;
             case POSTORDER:
-                System.out.print("Postorder traversal:      ");
-                System.out.println(postorder());
+                label = "Postorder traversal:      ";
                 break;
             default:
                 return;
         }
+        // System.out is not closed, only flushed.
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+        try {
+            out.write(label);
+            writeTraversal(type, out);
+            out.write(System.lineSeparator());
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     /**
      * Returns the height of the tree. If the tree is null, the height is -1.
+     * The height is found by the same single pass as sumLevels(), and cached
+     * until the next structural change.
      * @return the height of the tree
      */
     public int height() {
-        return height(root) ;
-    }
-
-    protected int height(Node<K, V> node) {
-        if (node == null) {
-            return -1;
-        }
-        return 1 + Math.max(height(node.left), height(node.right));
+        computeShapeMetrics();
+        return cachedHeight;
     }
 
     /**
-     * Returns the number of null references in the tree. Uses a recursive
-     * helper method to count the null references.
+     * Returns the number of null references in the tree. Every binary tree
+     * with n nodes has n + 1 of them, so this is O(1).
      * @return the number of null references in the tree
      */
     public int nullCount() {
-        return nullCount(root);
-    }
-
-    private int nullCount(Node<K, V> node) {
-        //TODO
-        if (node == null) {
-            return 1;
-        }
-        return nullCount(node.left) + nullCount(node.right);
+        return size + 1;
     }
 
 
@@ -453,17 +1674,14 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
      *      \
      *       10 <- level 2
      * has sum 0 + 2(1) + 2 = 4.
+     * The sum is found by one iterative walk of the tree, and cached until the
+     * next structural change, so repeated calls are O(1).
      * @return the sum of the levels of each non-null node in the tree starting
      *         at the root
      */
     public int sumLevels() {
-        return sumLevels(root, 0);
-    }
-
-    private int sumLevels(Node<K, V> node, int level) {
-        // TODO
-        if(node == null) return 0;
-        return level + sumLevels(node.left, level+1) + sumLevels(node.right,level+1);
+        computeShapeMetrics();
+        return cachedSumLevels;
     }
 
     /**
@@ -478,17 +1696,59 @@ public class BSTMap<K extends Comparable<K>, V> implements MyMap<K, V> {
      *      / \
      *      * * <- level 3
      * has sum 3(2) + 2(3) = 12.
+     * In any binary tree this is sumLevels() + 2 * size: each node adds two
+     * child slots one level below its own, and all but the root fill one.
      * @return the sum of the levels of each null node in the tree starting at
      *         the root
      */
      public int sumNullLevels() {
-        return sumNullLevels(root, 0);
+        return sumLevels() + 2 * size;
     }
 
-    private int sumNullLevels(Node<K, V> node, int level) {
-        // TODO
-        if (node == null) return level;
-        return sumNullLevels(node.left, level+1) + sumNullLevels(node.right,level+1);
+    /**
+     * Forgets the cached height and sumLevels(). Every change that bumps
+     * modCount does this implicitly; a subclass that reshapes the tree
+     * without bumping modCount, such as by rotating on a lookup, must call
+     * this instead.
+     */
+    protected void invalidateShapeMetrics() {
+        metricsModCount = -1;
+    }
+
+    /**
+     * Computes the height and the sum of the node levels in one walk of the
+     * tree along the parent pointers, unless they are already cached for the
+     * current shape. The walk does not recurse, so a degenerate tree cannot
+     * overflow the stack.
+     */
+    private void computeShapeMetrics() {
+        if (metricsModCount == modCount) {
+            return;
+        }
+        int height = -1, sum = 0, depth = 0;
+        Node<K, V> n = root;
+        while (n != null) {
+            sum += depth;
+            height = Math.max(height, depth);
+            if (n.left != null) {
+                n = n.left;
+                depth++;
+            } else if (n.right != null) {
+                n = n.right;
+                depth++;
+            } else {
+                // Climb to the next right subtree not yet visited.
+                while (n.parent != null
+                        && (n == n.parent.right || n.parent.right == null)) {
+                    n = n.parent;
+                    depth--;
+                }
+                n = n.parent == null ? null : n.parent.right;
+            }
+        }
+        cachedHeight = height;
+        cachedSumLevels = sum;
+        metricsModCount = modCount;
     }
 
     public double successfulSearchCost() {
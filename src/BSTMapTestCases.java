@@ -9,6 +9,8 @@ import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -295,4 +297,361 @@ public class BSTMapTestCases {
 
         assertEquals(2.333333333333333, map.successfulSearchCost(), DELTA);
     }
+
+    private static int[] shape(Node<Integer, Integer> n, int level) {
+        // {height, sumLevels, nullCount, sumNullLevels} of the subtree at n.
+        if (n == null) {
+            return new int[]{-1, 0, 1, level};
+        }
+        int[] left = shape(n.left, level + 1), right = shape(n.right, level + 1);
+        return new int[]{1 + Math.max(left[0], right[0]), level + left[1] + right[1],
+                left[2] + right[2], left[3] + right[3]};
+    }
+
+    @Test
+    public void testShapeMetrics01() {
+        BSTMap<Integer, Integer> map = new BSTMap<>();
+        assertEquals(-1, map.height());
+        assertEquals(1, map.nullCount());
+        assertEquals(0, map.sumNullLevels());
+        java.util.Random random = new java.util.Random(3134);
+        for (int i = 0; i < 2000; i++) {
+            int key = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+            } else {
+                map.put(key, key);
+            }
+            if (i % 50 == 0) {
+                int[] expected = shape(map.root, 0);
+                assertEquals(expected[0], map.height());
+                assertEquals(expected[1], map.sumLevels());
+                assertEquals(expected[2], map.nullCount());
+                assertEquals(expected[3], map.sumNullLevels());
+            }
+        }
+        // The cached values follow later changes.
+        int height = map.height();
+        for (int key = 1000; key < 1000 + height + 5; key++) {
+            map.put(key, key);
+        }
+        assertEquals(shape(map.root, 0)[0], map.height());
+        assertEquals(shape(map.root, 0)[1], map.sumLevels());
+    }
+
+    private BSTMap<Integer, Integer> unbalancedMap() {
+        BSTMap<Integer, Integer> map = new BSTMap<>();
+        int[] keys = {5, 2, 8, 1, 4, 7, 9, 3, 6};
+        for (int key : keys) {
+            map.put(key, key * 10);
+        }
+        return map;
+    }
+
+    @Test
+    public void testIterators01() {
+        BSTMap<Integer, Integer> map = unbalancedMap();
+        StringBuilder keys = new StringBuilder();
+        for (Iterator<Integer> it = map.keyIterator(); it.hasNext(); ) {
+            keys.append(it.next());
+        }
+        assertEquals("123456789", keys.toString());
+        keys.setLength(0);
+        for (Iterator<Integer> it = map.descendingKeyIterator(); it.hasNext(); ) {
+            keys.append(it.next());
+        }
+        assertEquals("987654321", keys.toString());
+        int expected = 10;
+        for (Iterator<Integer> it = map.valueIterator(); it.hasNext(); ) {
+            assertEquals(expected, it.next());
+            expected += 10;
+        }
+        int count = 0;
+        for (Pair<Integer, Integer> pair : map) {
+            assertEquals(pair.key * 10, pair.value);
+            count++;
+        }
+        assertEquals(9, count);
+        assertEquals(9, map.keySpliterator().estimateSize());
+        assertFalse(new BSTMap<Integer, Integer>().keyIterator().hasNext());
+    }
+
+    @Test
+    public void testIterators02() {
+        BSTMap<Integer, Integer> map = unbalancedMap();
+        // Remove the even keys while iterating, including 2 and 8 which have
+        // two children.
+        for (Iterator<Integer> it = map.keyIterator(); it.hasNext(); ) {
+            if (it.next() % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals("[<1, 10>, <3, 30>, <5, 50>, <7, 70>, <9, 90>]", map.inorder());
+        assertEquals(5, map.size());
+
+        Iterator<Integer> it = map.keyIterator();
+        assertThrows(IllegalStateException.class, it::remove);
+        it.next();
+        map.put(4, 40);
+        assertThrows(ConcurrentModificationException.class, it::next);
+        // Replacing the value of an existing key is not structural.
+        it = map.keyIterator();
+        it.next();
+        map.put(4, 41);
+        assertEquals(3, it.next());
+    }
+
+    @Test
+    public void testNavigation01() {
+        BSTMap<Integer, Integer> map = new BSTMap<>();
+        assertNull(map.firstKey());
+        assertNull(map.floorKey(5));
+        for (int key = 10; key <= 50; key += 10) {
+            map.put(key, key);
+        }
+        assertEquals(10, map.firstKey());
+        assertEquals(50, map.lastKey());
+        assertEquals(30, map.floorKey(30));
+        assertEquals(30, map.floorKey(35));
+        assertNull(map.floorKey(5));
+        assertEquals(30, map.ceilingKey(30));
+        assertEquals(40, map.ceilingKey(35));
+        assertNull(map.ceilingKey(55));
+        assertEquals(20, map.lowerKey(30));
+        assertNull(map.lowerKey(10));
+        assertEquals(40, map.higherKey(30));
+        assertNull(map.higherKey(50));
+    }
+
+    @Test
+    public void testSubMap01() {
+        BSTMap<Integer, Integer> map = new BSTMap<>();
+        for (int key = 10; key <= 90; key += 10) {
+            map.put(key, key);
+        }
+        BSTMap<Integer, Integer>.SubMap sub = map.subMap(20, true, 50, false);
+        assertEquals("[<20, 20>, <30, 30>, <40, 40>]", sub.toString());
+        assertEquals(3, sub.size());
+        assertEquals(20, sub.firstKey());
+        assertEquals(40, sub.lastKey());
+        assertEquals(40, sub.floorKey(100));
+        assertNull(sub.ceilingKey(45));
+        assertNull(sub.get(50));
+        assertEquals(30, sub.get(30));
+
+        // Views are live: changes in either direction show up in the other.
+        map.put(35, 35);
+        assertEquals(4, sub.size());
+        sub.remove(20);
+        assertNull(map.get(20));
+        assertThrows(IllegalArgumentException.class, () -> sub.put(50, 50));
+
+        assertEquals("[<10, 10>, <30, 30>]", map.headMap(30, true).toString());
+        assertEquals("[<80, 80>, <90, 90>]", map.tailMap(70, false).toString());
+        assertTrue(map.subMap(41, true, 49, true).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> map.subMap(50, true, 20, true));
+    }
+
+    @Test
+    public void testFromPairs01() {
+        Pair<Integer, Integer>[] pairs = new Pair[]{new Pair<>(5, 1), new Pair<>(2, 2),
+                new Pair<>(8, 3), new Pair<>(5, 4), new Pair<>(1, 5), new Pair<>(2, 6),
+                new Pair<>(9, 7), new Pair<>(5, 8)};
+        BSTMap<Integer, Integer> map = BSTMap.fromPairs(pairs);
+        assertEquals(5, map.size());
+        assertEquals("[<1, 5>, <2, 6>, <5, 8>, <8, 3>, <9, 7>]", map.inorder());
+        assertEquals("[<5, 8>, <1, 5>, <2, 6>, <8, 3>, <9, 7>]", map.preorder());
+        assertEquals(5, map.root.size);
+        // The input is left as it was.
+        assertEquals(5, pairs[0].key);
+        assertEquals(1, pairs[0].value);
+        assertTrue(BSTMap.fromPairs(new Pair[0]).isEmpty());
+    }
+
+    @Test
+    public void testParallelBuild01() {
+        Pair<Integer, Integer>[] pairs = new Pair[50_000];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = new Pair<>(i, i);
+        }
+        BSTMap<Integer, Integer> parallel = new BSTMap<>(pairs, true, true);
+        BSTMap<Integer, Integer> sequential = new BSTMap<>(pairs, true);
+        assertEquals(pairs.length, parallel.size());
+        assertEquals(pairs.length, parallel.root.size);
+        assertNull(parallel.root.parent);
+        assertEquals(sequential.postorder(), parallel.postorder());
+        assertEquals(12345, parallel.get(12345));
+        assertEquals(0, new BSTMap<>(new Pair[0], true, true).size());
+    }
+
+    @Test
+    public void testBatch01() {
+        BSTMap<Integer, Integer> map = new BSTMap<>();
+        map.put(50, 50);
+        map.put(20, 20);
+        map.put(80, 80);
+        Pair<Integer, Integer>[] batch = new Pair[]{new Pair<>(90, 1), new Pair<>(10, 2),
+                new Pair<>(20, 3), new Pair<>(30, 4), new Pair<>(85, 5), new Pair<>(95, 6),
+                new Pair<>(10, 7)};
+        map.putAll(batch);
+        assertEquals(8, map.size());
+        assertEquals(8, map.root.size);
+        // The keys that fell off the tree are built into balanced subtrees.
+        assertEquals("[<50, 50>, <20, 3>, <10, 7>, <30, 4>, <80, 80>, <90, 1>, <85, 5>, <95, 6>]",
+                map.preorder());
+        map.removeAll(new Integer[]{50, 85, 40, 85, 10});
+        assertEquals(5, map.size());
+        assertEquals(5, map.root.size);
+        assertNull(map.root.parent);
+        assertEquals("[<20, 3>, <30, 4>, <80, 80>, <90, 1>, <95, 6>]", map.inorder());
+        // As with put() and remove(), replacing values or missing every key
+        // is not structural, so open iterators carry on.
+        Iterator<Integer> it = map.keyIterator();
+        assertEquals(20, it.next());
+        map.putAll(new Pair[]{new Pair<>(90, 8), new Pair<>(30, 9)});
+        map.removeAll(new Integer[]{40, 100});
+        assertEquals(30, it.next());
+        map.putAll(new Pair[]{new Pair<>(40, 10), new Pair<>(30, 4)});
+        assertThrows(ConcurrentModificationException.class, it::next);
+        it = map.keyIterator();
+        map.removeAll(new Integer[]{40});
+        assertThrows(ConcurrentModificationException.class, it::next);
+        assertEquals("[<20, 3>, <30, 4>, <80, 80>, <90, 8>, <95, 6>]", map.inorder());
+        map.removeAll(new Integer[]{20, 30, 80, 90, 95});
+        assertTrue(map.isEmpty());
+        assertNull(map.root);
+    }
+
+    /**
+     * Returns a map of the even keys below 2 * n, linked straight into the
+     * right spine that n ascending calls to put would leave, without paying
+     * for those puts.
+     */
+    private static BSTMap<Integer, Integer> rightSpine(int n) {
+        BSTMap<Integer, Integer> map = new BSTMap<>();
+        Node<Integer, Integer> below = null;
+        for (int i = n - 1; i >= 0; i--) {
+            Node<Integer, Integer> node = new Node<>(2 * i, 2 * i);
+            node.right = below;
+            node.size = n - i;
+            if (below != null) {
+                below.parent = node;
+            }
+            below = node;
+        }
+        map.root = below;
+        map.size = n;
+        return map;
+    }
+
+    @Test
+    public void testBatch02() {
+        // A degenerate tree with one node on each level, far deeper than the
+        // call stack could follow.
+        BSTMap<Integer, Integer> map = rightSpine(100_000);
+        Pair<Integer, Integer>[] batch = new Pair[]{new Pair<>(199_999, 1)};
+        map.putAll(batch);
+        batch = new Pair[]{new Pair<>(99_999, 2), new Pair<>(199_998, 3), new Pair<>(-1, 4)};
+        map.putAll(batch);
+        assertEquals(100_003, map.size());
+        assertEquals(100_003, map.root.size);
+        assertEquals(1, map.get(199_999));
+        assertEquals(3, map.get(199_998));
+        map.removeAll(new Integer[]{199_996});
+        map.removeAll(new Integer[]{199_999, 0, 99_999, 100_000, 5});
+        assertEquals(99_998, map.size());
+        assertEquals(99_998, map.root.size);
+        assertNull(map.root.parent);
+        assertNull(map.get(199_996));
+        assertNull(map.get(100_000));
+        assertEquals(3, map.get(199_998));
+        int[] last = {-2};
+        map.forEach((k, v) -> {
+            assertTrue(k > last[0]);
+            last[0] = k;
+        });
+        assertEquals(199_998, last[0]);
+    }
+
+    @Test
+    public void testTraverse01() {
+        BSTMap<Integer, Integer> map = unbalancedMap();
+        String[] expected = {map.preorder(), map.inorder(), map.postorder()};
+        int[] types = {BSTMap.PREORDER, BSTMap.INORDER, BSTMap.POSTORDER};
+        for (int i = 0; i < types.length; i++) {
+            StringBuilder builder = new StringBuilder("[");
+            map.traverse(types[i], (k, v) -> builder.append(builder.length() > 1 ? ", " : "")
+                    .append('<').append(k).append(", ").append(v).append('>'));
+            assertEquals(expected[i], builder.append(']').toString());
+        }
+        int[] count = {0};
+        new BSTMap<Integer, Integer>().forEach((k, v) -> count[0]++);
+        assertEquals(0, count[0]);
+        assertThrows(IllegalArgumentException.class, () -> map.traverse(7, (k, v) -> { }));
+        assertThrows(ConcurrentModificationException.class, () -> map.forEach((k, v) -> map.remove(k)));
+    }
+
+    @Test
+    public void testTraverse02() {
+        // A degenerate tree with one node on each level.
+        BSTMap<Integer, Integer> map = new BSTMap<>();
+        for (int key = 0; key < 10_000; key++) {
+            map.put(key, key);
+        }
+        long[] sums = new long[2];
+        int[] last = {-1};
+        map.forEach((k, v) -> {
+            assertEquals(last[0] + 1, k);
+            last[0] = k;
+        });
+        map.traverse(BSTMap.PREORDER, (k, v) -> sums[0] += k);
+        map.traverse(BSTMap.POSTORDER, (k, v) -> sums[1] += v);
+        assertEquals(9_999, last[0]);
+        assertEquals(9_999L * 10_000 / 2, sums[0]);
+        assertEquals(sums[0], sums[1]);
+    }
+
+    @Test
+    public void testWriteTraversal01() throws java.io.IOException {
+        BSTMap<Integer, Integer> map = unbalancedMap();
+        StringBuilder builder = new StringBuilder();
+        map.writeTraversal(BSTMap.PREORDER, builder);
+        assertEquals(map.preorder(), builder.toString());
+        java.io.StringWriter writer = new java.io.StringWriter();
+        map.writeTraversal(BSTMap.POSTORDER, writer);
+        assertEquals(map.postorder(), writer.toString());
+        builder.setLength(0);
+        map.writeTraversal(BSTMap.INORDER, builder);
+        assertEquals(map.toString(), builder.toString());
+        builder.setLength(0);
+        new BSTMap<Integer, Integer>().writeTraversal(BSTMap.INORDER, builder);
+        assertEquals("[]", builder.toString());
+        assertThrows(IllegalArgumentException.class, () -> map.writeTraversal(0, new StringBuilder()));
+    }
+
+    @Test
+    public void testOrderStatistics01() {
+        BSTMap<Integer, Integer> map = unbalancedMap();
+        assertEquals(9, map.root.size);
+        assertEquals(0, map.rank(1));
+        assertEquals(4, map.rank(5));
+        assertEquals(9, map.rank(100));
+        assertEquals(1, map.select(0));
+        assertEquals(6, map.select(5));
+        assertEquals(9, map.select(8));
+        assertThrows(IndexOutOfBoundsException.class, () -> map.select(9));
+        assertEquals(5, map.countInRange(3, 7));
+        assertEquals(0, map.countInRange(7, 3));
+
+        map.remove(2);
+        map.remove(5);
+        assertEquals(7, map.root.size);
+        assertEquals(2, map.rank(4));
+        assertEquals(6, map.select(3));
+        assertEquals(3, map.countInRange(2, 6));
+        assertEquals(3, map.subMap(2, true, 6, true).size());
+        map.put(5, 50);
+        assertEquals(8, map.root.size);
+        assertEquals(4, map.countInRange(2, 6));
+    }
 }
@@ -0,0 +1,553 @@
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Class that implements a thread-safe AVL tree map whose reads take no locks.
+ *
+ * Writers are serialized by a single lock and rebalance the tree with the
+ * same rules as AVLTreeMap.balance(). Readers never lock. Instead every node
+ * carries a version stamp, and a reader descends hand-over-hand: it records
+ * a node's version, reads the child pointer and the child's version, and then
+ * checks that the node's version has not changed before moving on, in the
+ * style of Bronson et al., "A Practical Concurrent Binary Search Tree".
+ *
+ * A node's version changes only when the set of keys reachable below it
+ * shrinks: when a rotation moves it down, when a removal takes the successor
+ * out of its subtree, or when it is itself unlinked. While that happens the
+ * node is marked SHRINKING, and once unlinked it stays marked UNLINKED. A
+ * reader whose validation fails starts again from the root, so it retries
+ * only when a concurrent writer touched its path. Insertions only add leaves
+ * and never invalidate a reader.
+ * @author Marissa Crevecoeur, mac2538
+ * @version 1.0 October 16, 2026
+ */
+public class ConcurrentAVLTreeMap<K extends Comparable<K>, V>
+        implements MyMap<K, V> {
+    private static final int ALLOWED_IMBALANCE = 1;
+    private static final long SHRINKING = 1, UNLINKED = 2, VERSION_STEP = 4;
+    // Search modes of find().
+    private static final int EXACT = 0, CEILING = 1, HIGHER = 2, FLOOR = 3,
+            LOWER = 4, FIRST = 5, LAST = 6;
+
+    private volatile VersionedNode<K, V> root;
+    private volatile int size;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * Creates an empty concurrent AVL tree map.
+     */
+    public ConcurrentAVLTreeMap() { }
+
+    /**
+     * Creates a concurrent AVL tree map of the given key-value pairs. If
+     * sorted is true, a balanced tree will be created via a divide-and-conquer
+     * approach. If sorted is false, the pairs will be inserted in the order
+     * they are received.
+     * @param elements an array of key-value pairs
+     * @param sorted   whether elements is sorted by key
+     */
+    public ConcurrentAVLTreeMap(Pair<K, V>[] elements, boolean sorted) {
+        if (!sorted) {
+            for (Pair<K, V> pair : elements) {
+                put(pair.key, pair.value);
+            }
+        } else {
+            root = createBST(elements, 0, elements.length - 1);
+            size = elements.length;
+        }
+    }
+
+    private VersionedNode<K, V> createBST(Pair<K, V>[] pairs, int low,
+                                          int high) {
+        if (low > high) {
+            return null;
+        }
+        int mid = low + (high - low) / 2;
+        VersionedNode<K, V> n =
+                new VersionedNode<>(pairs[mid].key, pairs[mid].value);
+        n.left = createBST(pairs, low, mid - 1);
+        if (n.left != null) {
+            n.left.parent = n;
+        }
+        n.right = createBST(pairs, mid + 1, high);
+        if (n.right != null) {
+            n.right.parent = n;
+        }
+        updateHeight(n);
+        return n;
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if this map contains no key-value mappings.
+     * @return true if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private static boolean changing(long version) {
+        return (version & (SHRINKING | UNLINKED)) != 0;
+    }
+
+    /**
+     * Searches the tree without locking. In EXACT mode the node holding key
+     * is returned; in the other modes it is the node holding the ceiling,
+     * higher, floor, lower, first or last key. The descent validates each
+     * node's version before following one of its children, and restarts from
+     * the root if a concurrent writer changed a node on the path.
+     * @param key  the key to search for, ignored for FIRST and LAST
+     * @param mode one of EXACT, CEILING, HIGHER, FLOOR, LOWER, FIRST, LAST
+     * @return the node found, or null if there is none
+     */
+    private VersionedNode<K, V> find(K key, int mode) {
+        retry:
+        while (true) {
+            VersionedNode<K, V> node = root;
+            if (node == null) {
+                return null;
+            }
+            long version = node.version;
+            if (changing(version) || node != root) {
+                Thread.onSpinWait();
+                continue;
+            }
+            // The closest key seen so far on the side the mode asks for.
+            VersionedNode<K, V> candidate = null;
+            long candidateVersion = 0;
+            while (true) {
+                boolean goLeft;
+                if (mode == FIRST || mode == LAST) {
+                    goLeft = mode == FIRST;
+                } else {
+                    int comparison = key.compareTo(node.key);
+                    if (comparison == 0 && mode != HIGHER && mode != LOWER) {
+                        if (node.version != version) {
+                            continue retry;
+                        }
+                        return node;
+                    }
+                    goLeft = comparison < 0
+                            || (comparison == 0 && mode == LOWER);
+                    if (goLeft ? mode == CEILING || mode == HIGHER
+                               : mode == FLOOR || mode == LOWER) {
+                        candidate = node;
+                        candidateVersion = version;
+                    }
+                }
+                VersionedNode<K, V> child = goLeft ? node.left : node.right;
+                if (child == null) {
+                    if (node.version != version) {
+                        continue retry;
+                    }
+                    if (mode == FIRST || mode == LAST) {
+                        return node;
+                    }
+                    if (candidate != null
+                            && candidate.version != candidateVersion) {
+                        continue retry;
+                    }
+                    return candidate;
+                }
+                long childVersion = child.version;
+                if (changing(childVersion)) {
+                    Thread.onSpinWait();
+                    continue retry;
+                }
+                if (child != (goLeft ? node.left : node.right)
+                        || node.version != version) {
+                    continue retry;
+                }
+                node = child;
+                version = childVersion;
+            }
+        }
+    }
+
+    private static <K> K keyOf(VersionedNode<K, ?> n) {
+        return n == null ? null : n.key;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key. Never blocks.
+     * @param  key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or null if this
+     *         map contains no mapping for the key
+     */
+    public V get(K key) {
+        VersionedNode<K, V> n = find(key, EXACT);
+        return n != null ? n.value : null;
+    }
+
+    /**
+     * Returns true if this map contains a mapping for the specified key.
+     * @param key the key whose presence is to be tested
+     * @return true if this map contains a mapping for the key
+     */
+    public boolean containsKey(K key) {
+        return find(key, EXACT) != null;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map. If the
+     * map previously contained a mapping for the key, the old value is replaced
+     * by the specified value.
+     * @param key   the key with which the specified value is to be associated
+     * @param value the value to be associated with the specified key
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     */
+    public V put(K key, V value) {
+        writeLock.lock();
+        try {
+            VersionedNode<K, V> parent = null, current = root;
+            int comparison = 0;
+            while (current != null) {
+                comparison = key.compareTo(current.key);
+                if (comparison == 0) {
+                    V oldValue = current.value;
+                    current.value = value;
+                    return oldValue;
+                }
+                parent = current;
+                current = comparison < 0 ? current.left : current.right;
+            }
+            // The node is complete before the volatile write that makes it
+            // reachable by readers.
+            VersionedNode<K, V> n = new VersionedNode<>(key, value);
+            n.parent = parent;
+            if (parent == null) {
+                root = n;
+            } else if (comparison < 0) {
+                parent.left = n;
+            } else {
+                parent.right = n;
+            }
+            size++;
+            retrace(parent);
+            return null;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the mapping for a key from this map if it is present.
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     */
+    public V remove(K key) {
+        writeLock.lock();
+        try {
+            VersionedNode<K, V> z = root;
+            while (z != null) {
+                int comparison = key.compareTo(z.key);
+                if (comparison == 0) {
+                    break;
+                }
+                z = comparison < 0 ? z.left : z.right;
+            }
+            if (z == null) {
+                return null;
+            }
+            long zVersion = beginShrink(z);
+            // The lowest node whose subtree lost a node.
+            VersionedNode<K, V> lowest;
+            if (z.left == null || z.right == null) {
+                lowest = z.parent;
+                transplant(z, z.left != null ? z.left : z.right);
+            } else {
+                VersionedNode<K, V> y = z.right;
+                while (y.left != null) {
+                    y = y.left;
+                }
+                if (y.parent != z) {
+                    lowest = y.parent;
+                    // Every node from z.right down to y's old parent loses y
+                    // from its subtree, so readers there must revalidate.
+                    for (VersionedNode<K, V> n = lowest; n != z; n = n.parent) {
+                        n.version |= SHRINKING;
+                    }
+                    lowest.left = y.right;
+                    if (y.right != null) {
+                        y.right.parent = lowest;
+                    }
+                    y.right = z.right;
+                    y.right.parent = y;
+                    y.left = z.left;
+                    y.left.parent = y;
+                    transplant(z, y);
+                    for (VersionedNode<K, V> n = lowest; n != y; n = n.parent) {
+                        n.version = (n.version & ~SHRINKING) + VERSION_STEP;
+                    }
+                } else {
+                    lowest = y;
+                    y.left = z.left;
+                    y.left.parent = y;
+                    transplant(z, y);
+                }
+                y.height = z.height;
+            }
+            z.version = zVersion | UNLINKED;
+            size--;
+            retrace(lowest);
+            return z.value;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the smallest key in this map, or null if the map is empty.
+     * @return the smallest key in this map
+     */
+    public K firstKey() {
+        return keyOf(find(null, FIRST));
+    }
+
+    /**
+     * Returns the largest key in this map, or null if the map is empty.
+     * @return the largest key in this map
+     */
+    public K lastKey() {
+        return keyOf(find(null, LAST));
+    }
+
+    /**
+     * Returns the greatest key less than or equal to the given key, or null if
+     * there is no such key.
+     * @param key the key to search for
+     * @return the greatest key less than or equal to key
+     */
+    public K floorKey(K key) {
+        return keyOf(find(key, FLOOR));
+    }
+
+    /**
+     * Returns the least key greater than or equal to the given key, or null if
+     * there is no such key.
+     * @param key the key to search for
+     * @return the least key greater than or equal to key
+     */
+    public K ceilingKey(K key) {
+        return keyOf(find(key, CEILING));
+    }
+
+    /**
+     * Returns the greatest key strictly less than the given key, or null if
+     * there is no such key.
+     * @param key the key to search for
+     * @return the greatest key strictly less than key
+     */
+    public K lowerKey(K key) {
+        return keyOf(find(key, LOWER));
+    }
+
+    /**
+     * Returns the least key strictly greater than the given key, or null if
+     * there is no such key.
+     * @param key the key to search for
+     * @return the least key strictly greater than key
+     */
+    public K higherKey(K key) {
+        return keyOf(find(key, HIGHER));
+    }
+
+    /**
+     * Passes each mapping with lo <= key <= hi to action in ascending key
+     * order, without locking. Each step is a validated ceiling or higher
+     * search, so the scan is weakly consistent: it sees every mapping that is
+     * present for the whole scan, and may or may not see mappings added or
+     * removed while it runs.
+     * @param lo     the low end of the range, inclusive
+     * @param hi     the high end of the range, inclusive
+     * @param action the action to apply to each key and value
+     */
+    public void forEachInRange(K lo, K hi,
+                               BiConsumer<? super K, ? super V> action) {
+        for (VersionedNode<K, V> n = find(lo, CEILING);
+             n != null && n.key.compareTo(hi) <= 0;
+             n = find(n.key, HIGHER)) {
+            action.accept(n.key, n.value);
+        }
+    }
+
+    /**
+     * Returns a String of the key-value pairs in ascending key order. Writers
+     * are held off while it is built, so it is one consistent snapshot;
+     * readers are not.
+     * @return a String representation of the map
+     */
+    public String toString() {
+        writeLock.lock();
+        try {
+            StringBuilder builder = new StringBuilder("[");
+            VersionedNode<K, V> n = root;
+            while (n != null && n.left != null) {
+                n = n.left;
+            }
+            while (n != null) {
+                builder.append('<').append(n.key).append(", ").append(n.value)
+                       .append('>');
+                // Step to the successor along the parent pointers.
+                if (n.right != null) {
+                    n = n.right;
+                    while (n.left != null) {
+                        n = n.left;
+                    }
+                } else {
+                    while (n.parent != null && n == n.parent.right) {
+                        n = n.parent;
+                    }
+                    n = n.parent;
+                }
+                if (n != null) {
+                    builder.append(", ");
+                }
+            }
+            return builder.append(']').toString();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Marks n as shrinking and returns its version from before the mark.
+     */
+    private static long beginShrink(VersionedNode<?, ?> n) {
+        long version = n.version;
+        n.version = version | SHRINKING;
+        return version;
+    }
+
+    private static void endShrink(VersionedNode<?, ?> n, long version) {
+        n.version = version + VERSION_STEP;
+    }
+
+    private void transplant(VersionedNode<K, V> u, VersionedNode<K, V> v) {
+        if (u.parent == null) {
+            root = v;
+        } else if (u == u.parent.left) {
+            u.parent.left = v;
+        } else {
+            u.parent.right = v;
+        }
+        if (v != null) {
+            v.parent = u.parent;
+        }
+    }
+
+    /**
+     * Rebalances the tree from n up towards the root after an insertion or a
+     * removal, stopping once a subtree's height no longer changes.
+     * @param n the lowest node whose subtree changed
+     */
+    private void retrace(VersionedNode<K, V> n) {
+        while (n != null) {
+            int oldHeight = n.height;
+            n = balance(n);
+            if (n.height == oldHeight) {
+                return;
+            }
+            n = n.parent;
+        }
+    }
+
+    private VersionedNode<K, V> balance(VersionedNode<K, V> t) {
+        if (avlHeight(t.left) - avlHeight(t.right) > ALLOWED_IMBALANCE) {
+            if (avlHeight(t.left.left) >= avlHeight(t.left.right)) {
+                t = rotateWithLeftChild(t);
+            } else {
+                rotateWithRightChild(t.left);
+                t = rotateWithLeftChild(t);
+            }
+        } else if (avlHeight(t.right) - avlHeight(t.left) > ALLOWED_IMBALANCE) {
+            if (avlHeight(t.right.right) >= avlHeight(t.right.left)) {
+                t = rotateWithRightChild(t);
+            } else {
+                rotateWithLeftChild(t.right);
+                t = rotateWithRightChild(t);
+            }
+        }
+        updateHeight(t);
+        return t;
+    }
+
+    private static int avlHeight(VersionedNode<?, ?> t) {
+        return t == null ? -1 : t.height;
+    }
+
+    private static void updateHeight(VersionedNode<?, ?> t) {
+        t.height = Math.max(avlHeight(t.left), avlHeight(t.right)) + 1;
+    }
+
+    /**
+     * Rotates k2's left child up into k2's place. k2 moves down and loses
+     * keys, so it is marked shrinking until the rotation is done. k1 gets k2
+     * as its right child before it is linked into k2's old place, so a reader
+     * never reaches k1 while k1 is missing part of its new range.
+     */
+    private VersionedNode<K, V> rotateWithLeftChild(VersionedNode<K, V> k2) {
+        VersionedNode<K, V> k1 = k2.left;
+        long version = beginShrink(k2);
+        k2.left = k1.right;
+        if (k2.left != null) {
+            k2.left.parent = k2;
+        }
+        k1.right = k2;
+        transplant(k2, k1);
+        k2.parent = k1;
+        updateHeight(k2);
+        updateHeight(k1);
+        endShrink(k2, version);
+        return k1;
+    }
+
+    /**
+     * Rotates k1's right child up into k1's place; the mirror image of
+     * rotateWithLeftChild.
+     */
+    private VersionedNode<K, V> rotateWithRightChild(VersionedNode<K, V> k1) {
+        VersionedNode<K, V> k2 = k1.right;
+        long version = beginShrink(k1);
+        k1.right = k2.left;
+        if (k1.right != null) {
+            k1.right.parent = k1;
+        }
+        k2.left = k1;
+        transplant(k1, k2);
+        k1.parent = k2;
+        updateHeight(k1);
+        updateHeight(k2);
+        endShrink(k1, version);
+        return k2;
+    }
+
+    /**
+     * Node of a ConcurrentAVLTreeMap. The fields that readers follow are
+     * volatile; parent and height are only used by the writer holding the
+     * lock.
+     */
+    private static class VersionedNode<K, V> {
+        final K key;
+        volatile V value;
+        volatile VersionedNode<K, V> left, right;
+        volatile long version;
+        VersionedNode<K, V> parent;
+        int height;
+
+        VersionedNode(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/**
+ * Test cases for ConcurrentAVLTreeMap.
+ */
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentAVLTreeMapTestCases {
+
+    private static final int WRITERS = 8, READERS = 8, OPS = 50_000, STABLE = 1000;
+
+    @Test
+    public void testStress01() throws InterruptedException {
+        ConcurrentAVLTreeMap<Integer, Integer> map = new ConcurrentAVLTreeMap<>();
+        // Keys below zero are never touched by the writers, so readers must
+        // always find them, however the tree is rotated around them.
+        for (int key = -STABLE; key < 0; key++) {
+            map.put(key, -key);
+        }
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicBoolean done = new AtomicBoolean();
+        Thread[] threads = new Thread[WRITERS + READERS];
+        @SuppressWarnings("unchecked")
+        Map<Integer, Integer>[] expected = new Map[WRITERS];
+        for (int t = 0; t < WRITERS; t++) {
+            int id = t;
+            expected[t] = new HashMap<>();
+            threads[t] = new Thread(() -> {
+                // Each writer owns the keys congruent to its id.
+                Random random = new Random(id);
+                for (int i = 0; i < OPS; i++) {
+                    int key = random.nextInt(2000) * WRITERS + id;
+                    if (random.nextBoolean()) {
+                        assertEquals(expected[id].put(key, i), map.put(key, i));
+                    } else {
+                        assertEquals(expected[id].remove(key), map.remove(key));
+                    }
+                }
+            });
+        }
+        for (int t = WRITERS; t < threads.length; t++) {
+            int id = t;
+            threads[t] = new Thread(() -> {
+                Random random = new Random(id);
+                while (!done.get()) {
+                    int key = -1 - random.nextInt(STABLE);
+                    assertEquals(-key, map.get(key));
+                    assertEquals(-STABLE, map.firstKey());
+                    assertEquals(key, map.floorKey(key));
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.setUncaughtExceptionHandler((th, e) -> failure.compareAndSet(null, e));
+            thread.start();
+        }
+        for (int t = 0; t < WRITERS; t++) {
+            threads[t].join();
+        }
+        done.set(true);
+        for (int t = WRITERS; t < threads.length; t++) {
+            threads[t].join();
+        }
+        if (failure.get() != null) {
+            fail(failure.get().toString());
+        }
+
+        int size = STABLE;
+        for (Map<Integer, Integer> owned : expected) {
+            size += owned.size();
+            for (Map.Entry<Integer, Integer> entry : owned.entrySet()) {
+                assertEquals(entry.getValue(), map.get(entry.getKey()));
+            }
+        }
+        assertEquals(size, map.size());
+    }
+
+    @Test
+    public void testStress02() throws InterruptedException {
+        ConcurrentAVLTreeMap<Integer, Integer> map = new ConcurrentAVLTreeMap<>();
+        // Stable keys are the multiples of stride and writer keys fill the gaps
+        // between them, so rotations and removals constantly move the nodes
+        // that hold stable keys while readers scan past them.
+        int stride = WRITERS + 1;
+        for (int s = 0; s < STABLE; s++) {
+            map.put(s * stride, s);
+        }
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicBoolean done = new AtomicBoolean();
+        Thread[] threads = new Thread[WRITERS + READERS];
+        for (int t = 0; t < WRITERS; t++) {
+            int id = t;
+            threads[t] = new Thread(() -> {
+                Random random = new Random(id);
+                for (int i = 0; i < OPS; i++) {
+                    int key = random.nextInt(STABLE) * stride + id + 1;
+                    if (random.nextBoolean()) {
+                        map.put(key, i);
+                    } else {
+                        map.remove(key);
+                    }
+                }
+            });
+        }
+        for (int t = WRITERS; t < threads.length; t++) {
+            int id = t;
+            threads[t] = new Thread(() -> {
+                Random random = new Random(id);
+                while (!done.get()) {
+                    int s = random.nextInt(STABLE - 10);
+                    int key = s * stride;
+                    assertEquals(key, map.ceilingKey(key));
+                    assertEquals(key, map.floorKey(key));
+                    int higher = map.higherKey(key);
+                    assertTrue(higher > key && higher <= key + stride);
+                    if (s > 0) {
+                        int lower = map.lowerKey(key);
+                        assertTrue(lower < key && lower >= key - stride);
+                    }
+                    List<Integer> stable = new ArrayList<>();
+                    int[] last = {Integer.MIN_VALUE};
+                    map.forEachInRange(key, key + 10 * stride, (k, v) -> {
+                        assertTrue(k > last[0]);
+                        last[0] = k;
+                        if (k % stride == 0) {
+                            stable.add(v);
+                        }
+                    });
+                    assertEquals(11, stable.size());
+                    for (int i = 0; i < stable.size(); i++) {
+                        assertEquals(s + i, stable.get(i));
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.setUncaughtExceptionHandler((th, e) -> failure.compareAndSet(null, e));
+            thread.start();
+        }
+        for (int t = 0; t < WRITERS; t++) {
+            threads[t].join();
+        }
+        done.set(true);
+        for (int t = WRITERS; t < threads.length; t++) {
+            threads[t].join();
+        }
+        if (failure.get() != null) {
+            fail(failure.get().toString());
+        }
+        for (int s = 0; s < STABLE; s++) {
+            assertEquals(s, map.get(s * stride));
+        }
+    }
+
+    @Test
+    public void testNavigation01() {
+        ConcurrentAVLTreeMap<Integer, Integer> map = new ConcurrentAVLTreeMap<>();
+        assertNull(map.firstKey());
+        assertNull(map.ceilingKey(0));
+        for (int key = 0; key < 100; key += 2) {
+            map.put(key, key * 10);
+        }
+        assertEquals(0, map.firstKey());
+        assertEquals(98, map.lastKey());
+        assertEquals(4, map.floorKey(5));
+        assertEquals(6, map.ceilingKey(5));
+        assertEquals(2, map.lowerKey(4));
+        assertEquals(6, map.higherKey(4));
+        assertNull(map.lowerKey(0));
+        assertNull(map.higherKey(98));
+        StringBuilder builder = new StringBuilder();
+        map.forEachInRange(9, 15, (k, v) -> builder.append(k).append('=').append(v).append(' '));
+        assertEquals("10=100 12=120 14=140 ", builder.toString());
+        for (int key = 0; key < 100; key += 4) {
+            assertEquals(key * 10, map.remove(key));
+        }
+        assertEquals(25, map.size());
+        assertEquals(2, map.firstKey());
+        assertEquals(6, map.floorKey(7));
+        assertNull(map.get(4));
+    }
+
+    @Test
+    public void testSorted01() {
+        Pair<Integer, Integer>[] pairs = new Pair[6];
+        for (int i = 0; i < 6; i++) {
+            pairs[i] = new Pair(i, i);
+        }
+        ConcurrentAVLTreeMap<Integer, Integer> map = new ConcurrentAVLTreeMap<>(pairs, true);
+        assertEquals("[<0, 0>, <1, 1>, <2, 2>, <3, 3>, <4, 4>, <5, 5>]", map.toString());
+        assertTrue(map.containsKey(3));
+        assertEquals(3, map.remove(3));
+        assertFalse(map.containsKey(3));
+        assertEquals(4, map.ceilingKey(3));
+        assertEquals(5, map.lastKey());
+        assertFalse(map.isEmpty());
+    }
+}
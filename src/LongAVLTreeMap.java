@@ -0,0 +1,131 @@
+import java.util.NoSuchElementException;
+
+/**
+ * Class that implements an AVL tree map whose keys are primitive longs. It has
+ * the same operations as MyMap, but keys are stored unboxed in the nodes and
+ * compared with the native operators, so there is no Long per entry and no
+ * virtual compareTo call per level. Balancing is shared with IntAVLTreeMap
+ * through PrimitiveAVLTreeMap.
+ * @author Marissa Crevecoeur, mac2538
+ * @version 1.0 October 16, 2026
+ */
+public class LongAVLTreeMap<V>
+        extends PrimitiveAVLTreeMap<LongAVLTreeMap.LongNode<V>, V> {
+
+    /**
+     * Creates an empty AVL tree map.
+     */
+    public LongAVLTreeMap() { }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key.
+     * @param  key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or null if this
+     *         map contains no mapping for the key
+     */
+    public V get(long key) {
+        LongNode<V> n = search(key);
+        return n != null ? n.value : null;
+    }
+
+    /**
+     * Returns true if this map contains a mapping for the specified key.
+     * @param key the key whose presence is to be tested
+     * @return true if this map contains a mapping for the key
+     */
+    public boolean containsKey(long key) {
+        return search(key) != null;
+    }
+
+    private LongNode<V> search(long key) {
+        LongNode<V> current = root;
+        while (current != null) {
+            if (key < current.key) {
+                current = current.left;
+            } else if (key > current.key) {
+                current = current.right;
+            } else {
+                return current;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map. If the
+     * map previously contained a mapping for the key, the old value is replaced
+     * by the specified value.
+     * @param key   the key with which the specified value is to be associated
+     * @param value the value to be associated with the specified key
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     */
+    public V put(long key, V value) {
+        LongNode<V> parent = null, current = root;
+        while (current != null) {
+            if (key == current.key) {
+                V oldValue = current.value;
+                current.value = value;
+                return oldValue;
+            }
+            parent = current;
+            current = key < current.key ? current.left : current.right;
+        }
+        attach(parent, new LongNode<>(key, value),
+               parent != null && key < parent.key);
+        return null;
+    }
+
+    /**
+     * Removes the mapping for a key from this map if it is present.
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     */
+    public V remove(long key) {
+        LongNode<V> z = search(key);
+        return z != null ? unlink(z) : null;
+    }
+
+    /**
+     * Returns the smallest key in this map.
+     * @return the smallest key in this map
+     * @throws NoSuchElementException if the map is empty
+     */
+    public long firstKey() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        return first().key;
+    }
+
+    /**
+     * Returns the largest key in this map.
+     * @return the largest key in this map
+     * @throws NoSuchElementException if the map is empty
+     */
+    public long lastKey() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        return last().key;
+    }
+
+    /**
+     * Node of a LongAVLTreeMap, holding its key unboxed.
+     */
+    static final class LongNode<V> extends AVLNode<LongNode<V>, V> {
+        final long key;
+
+        LongNode(long key, V value) {
+            super(value);
+            this.key = key;
+        }
+
+        @Override
+        void appendKey(StringBuilder builder) {
+            builder.append(key);
+        }
+    }
+}
@@ -0,0 +1,470 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Micro-benchmark harness for the MyMap implementations. Each benchmark is
+ * run for a number of warm-up iterations followed by measured iterations, and
+ * the median time per operation is reported. The memory benchmark instead
+ * reports the heap retained by the tree structure per entry. All key traces are generated
+ * from a fixed seed, so two runs on the same machine see exactly the same
+ * sequence of operations.
+ *
+ * Usage:
+ *   java MapBenchmark [-maps bst,avl] [-sizes 1000,...] [-dists sequential,...]
+ *                     [-benchmarks get,put,mix,...] [-ops n] [-warmup n]
+ *                     [-iterations n] [-seed n]
+ *   java MapBenchmark -threads 1,2,4,8,16,32 [-maps concurrent] [-sizes ...]
+ *                     [-reads percent] [-millis n]
+ *
+ * With -threads, each thread-safe map is instead driven by the given numbers
+ * of threads doing a mix of reads and writes for a fixed time, and the total
+ * throughput is reported.
+ *
+ * Run with a large heap (e.g. -Xmx8g) for sizes of 10M keys.
+ * @author Marissa Crevecoeur, mac2538
+ * @version 1.0 October 16, 2026
+ */
+public class MapBenchmark {
+    public static final String SEQUENTIAL = "sequential", RANDOM = "random",
+            ZIPFIAN = "zipfian";
+    private static final double ZIPF_SKEW = 0.99;
+
+    private static final Map<String, Function<Pair<Integer, Integer>[],
+            MyMap<Integer, Integer>>> MAPS = new LinkedHashMap<>();
+    static {
+        MAPS.put("bst", pairs -> new BSTMap<>(pairs, true));
+        MAPS.put("avl", pairs -> new AVLTreeMap<>(pairs, true));
+        MAPS.put("avl-parallel", pairs -> new AVLTreeMap<>(pairs, true, true));
+        MAPS.put("array", pairs -> new ArrayAVLTreeMap<>(pairs, true));
+        MAPS.put("splay", pairs -> new SplayTreeMap<>(pairs, true));
+        MAPS.put("rb", pairs -> new RedBlackTreeMap<>(pairs, true));
+        MAPS.put("bplus", pairs -> new BPlusTreeMap<>(pairs, true));
+        MAPS.put("concurrent",
+                pairs -> new ConcurrentAVLTreeMap<>(pairs, true));
+    }
+    // Maps that may be shared between threads in the throughput benchmark.
+    private static final List<String> THREAD_SAFE =
+            Arrays.asList("concurrent");
+
+    private static final String[] BENCHMARKS =
+            {"get", "put", "remove", "mix", "build", "inorder", "memory"};
+    // Benchmarks that do not depend on the key distribution are run only
+    // once per size.
+    private static final List<String> UNORDERED = Arrays.asList("build",
+            "inorder", "memory");
+
+    private int ops = 1_000_000, warmup = 3, iterations = 5;
+    private int readPercent = 95, millis = 2000;
+    private long seed = 3134;
+    private long blackhole;
+
+    /**
+     * A single measured operation over a prepared map and key trace.
+     */
+    private interface Benchmark {
+        /**
+         * Runs the benchmark once.
+         * @return the number of operations performed
+         */
+        long run();
+    }
+
+    /**
+     * Returns a trace of ops indices into a key space of size n, drawn from
+     * the named distribution.
+     * @param distribution one of SEQUENTIAL, RANDOM or ZIPFIAN
+     * @param n            the number of distinct keys
+     * @param ops          the length of the trace
+     * @param random       the source of randomness
+     * @return a trace of ops indices in the range [0, n)
+     */
+    static int[] trace(String distribution, int n, int ops, Random random) {
+        int[] trace = new int[ops];
+        switch (distribution) {
+            case SEQUENTIAL:
+                for (int i = 0; i < ops; i++) {
+                    trace[i] = i % n;
+                }
+                break;
+            case RANDOM:
+                for (int i = 0; i < ops; i++) {
+                    trace[i] = random.nextInt(n);
+                }
+                break;
+            case ZIPFIAN:
+                // Gray et al., "Quickly generating billion-record synthetic
+                // databases". Ranks are scattered through a fixed permutation
+                // so that the hot keys are not all adjacent in the tree.
+                double zetaN = zeta(n, ZIPF_SKEW), zeta2 = zeta(2, ZIPF_SKEW);
+                double alpha = 1.0 / (1.0 - ZIPF_SKEW);
+                double eta = (1 - Math.pow(2.0 / n, 1 - ZIPF_SKEW))
+                        / (1 - zeta2 / zetaN);
+                int[] permutation = permutation(n, random);
+                for (int i = 0; i < ops; i++) {
+                    double u = random.nextDouble(), uz = u * zetaN;
+                    int rank;
+                    if (uz < 1.0) {
+                        rank = 0;
+                    } else if (uz < 1.0 + Math.pow(0.5, ZIPF_SKEW)) {
+                        rank = 1;
+                    } else {
+                        rank = (int) (n * Math.pow(eta * u - eta + 1, alpha));
+                    }
+                    trace[i] = permutation[Math.min(rank, n - 1)];
+                }
+                break;
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown distribution '" + distribution + "'.");
+        }
+        return trace;
+    }
+
+    private static double zeta(int n, double theta) {
+        double sum = 0;
+        for (int i = 1; i <= n; i++) {
+            sum += 1 / Math.pow(i, theta);
+        }
+        return sum;
+    }
+
+    private static int[] permutation(int n, Random random) {
+        int[] permutation = new int[n];
+        for (int i = 0; i < n; i++) {
+            permutation[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1), tmp = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = tmp;
+        }
+        return permutation;
+    }
+
+    /**
+     * Returns n pairs sorted by key. Keys are the even numbers 0, 2, ...,
+     * 2(n - 1), leaving the odd numbers free for unsuccessful searches.
+     * @param n the number of pairs
+     * @return n pairs sorted by key
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Pair<Integer, Integer>[] sortedPairs(int n) {
+        Pair<Integer, Integer>[] pairs = new Pair[n];
+        for (int i = 0; i < n; i++) {
+            pairs[i] = new Pair<>(2 * i, i);
+        }
+        return pairs;
+    }
+
+    /**
+     * Creates the benchmark with the given name over a map holding pairs.
+     * @param name  the name of the benchmark
+     * @param maker the factory for the map under test
+     * @param pairs the sorted pairs the map is built from
+     * @param trace indices into pairs giving the order of access
+     * @return the benchmark
+     */
+    private Benchmark create(String name,
+            Function<Pair<Integer, Integer>[], MyMap<Integer, Integer>> maker,
+            Pair<Integer, Integer>[] pairs, int[] trace) {
+        Integer[] keys = new Integer[trace.length];
+        for (int i = 0; i < trace.length; i++) {
+            keys[i] = pairs[trace[i]].key;
+        }
+        switch (name) {
+            case "build":
+                return () -> {
+                    blackhole += maker.apply(pairs).size();
+                    return pairs.length;
+                };
+            case "inorder":
+                MyMap<Integer, Integer> traversed = maker.apply(pairs);
+                return () -> {
+                    blackhole += traversed.toString().length();
+                    return traversed.size();
+                };
+            default:
+                break;
+        }
+        MyMap<Integer, Integer> map = maker.apply(pairs);
+        switch (name) {
+            case "get":
+                return () -> {
+                    for (Integer key : keys) {
+                        blackhole += map.get(key);
+                    }
+                    return keys.length;
+                };
+            case "put":
+                // Updates of existing keys.
+                return () -> {
+                    for (Integer key : keys) {
+                        blackhole += map.put(key, key);
+                    }
+                    return keys.length;
+                };
+            case "remove":
+                // Each removal is paired with a re-insertion so the size of
+                // the map stays fixed across iterations.
+                return () -> {
+                    for (Integer key : keys) {
+                        blackhole += map.remove(key);
+                        map.put(key, key);
+                    }
+                    return keys.length;
+                };
+            case "mix":
+                // A write-heavy mix: of every four operations, two are gets,
+                // one inserts an absent (odd) key and one removes it again,
+                // so half of the operations rebalance the tree.
+                return () -> {
+                    for (int i = 0; i + 3 < keys.length; i += 4) {
+                        blackhole += map.get(keys[i]);
+                        map.put(keys[i + 1] + 1, i);
+                        blackhole += map.get(keys[i + 2]);
+                        blackhole += map.remove(keys[i + 1] + 1);
+                    }
+                    return keys.length & ~3;
+                };
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown benchmark '" + name + "'.");
+        }
+    }
+
+    /**
+     * Runs the warm-up and measured iterations of a benchmark. Each iteration
+     * gets a freshly built map, so that benchmarks which change the shape of
+     * the tree do not compound across iterations.
+     * @param name  the name of the benchmark
+     * @param maker the factory for the map under test
+     * @param pairs the sorted pairs the map is built from
+     * @param trace indices into pairs giving the order of access
+     * @return the median time per operation in nanoseconds
+     */
+    private double measure(String name,
+            Function<Pair<Integer, Integer>[], MyMap<Integer, Integer>> maker,
+            Pair<Integer, Integer>[] pairs, int[] trace) {
+        for (int i = 0; i < warmup; i++) {
+            create(name, maker, pairs, trace).run();
+        }
+        double[] nanosPerOp = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            Benchmark benchmark = create(name, maker, pairs, trace);
+            long start = System.nanoTime();
+            long count = benchmark.run();
+            nanosPerOp[i] = (double) (System.nanoTime() - start) / count;
+        }
+        Arrays.sort(nanosPerOp);
+        return nanosPerOp[iterations / 2];
+    }
+
+    /**
+     * Returns the heap retained by a map built from pairs, per entry. The keys
+     * and values already exist in pairs, so this is the cost of the tree
+     * structure alone.
+     * @param maker the factory for the map under test
+     * @param pairs the sorted pairs the map is built from
+     * @return the number of bytes retained per entry
+     */
+    private double footprint(
+            Function<Pair<Integer, Integer>[], MyMap<Integer, Integer>> maker,
+            Pair<Integer, Integer>[] pairs) {
+        double[] bytesPerEntry = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long before = usedMemory();
+            MyMap<Integer, Integer> map = maker.apply(pairs);
+            long after = usedMemory();
+            blackhole += map.size();
+            bytesPerEntry[i] = (double) (after - before) / pairs.length;
+        }
+        Arrays.sort(bytesPerEntry);
+        return bytesPerEntry[iterations / 2];
+    }
+
+    /**
+     * Drives one shared map from several threads for a fixed time. Each
+     * thread draws keys uniformly at random. Reads are gets of present keys.
+     * Writes alternately insert and remove absent (odd) keys, so that they
+     * rotate the tree while its size stays roughly constant.
+     * @param maker   the factory for the map under test
+     * @param pairs   the sorted pairs the map is built from
+     * @param threads the number of threads
+     * @return the total throughput in millions of operations per second
+     * @throws InterruptedException if interrupted while waiting for threads
+     */
+    private double throughput(
+            Function<Pair<Integer, Integer>[], MyMap<Integer, Integer>> maker,
+            Pair<Integer, Integer>[] pairs, int threads)
+            throws InterruptedException {
+        MyMap<Integer, Integer> map = maker.apply(pairs);
+        AtomicLong total = new AtomicLong(), sums = new AtomicLong();
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(seed + t);
+            workers[t] = new Thread(() -> {
+                long count = 0, sum = 0;
+                boolean insert = true;
+                while ((count & 1023) != 0 || System.nanoTime() < deadline) {
+                    int key = 2 * random.nextInt(pairs.length);
+                    if (random.nextInt(100) < readPercent) {
+                        sum += map.get(key);
+                    } else if (insert) {
+                        map.put(key + 1, key);
+                        insert = false;
+                    } else {
+                        map.remove(key + 1);
+                        insert = true;
+                    }
+                    count++;
+                }
+                total.addAndGet(count);
+                sums.addAndGet(sum);
+            });
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        blackhole += sums.get();
+        return total.get() / (millis * 1000.0);
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static List<String> list(String value) {
+        return new ArrayList<>(Arrays.asList(value.split(",")));
+    }
+
+    /**
+     * Runs the benchmarks selected on the command line and prints one line
+     * per (map, benchmark, distribution, size) combination.
+     * @param args the command line options
+     * @throws InterruptedException if interrupted during a threaded run
+     */
+    public static void main(String[] args) throws InterruptedException {
+        MapBenchmark bench = new MapBenchmark();
+        List<String> maps = new ArrayList<>(MAPS.keySet()),
+                benchmarks = new ArrayList<>(Arrays.asList(BENCHMARKS)),
+                dists = list(SEQUENTIAL + "," + RANDOM + "," + ZIPFIAN);
+        List<Integer> sizes = new ArrayList<>(
+                Arrays.asList(1_000, 10_000, 100_000, 1_000_000)),
+                threads = new ArrayList<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-maps":
+                    maps = list(value);
+                    break;
+                case "-benchmarks":
+                    benchmarks = list(value);
+                    break;
+                case "-dists":
+                    dists = list(value);
+                    break;
+                case "-sizes":
+                    sizes.clear();
+                    for (String size : value.split(",")) {
+                        sizes.add(Integer.parseInt(size));
+                    }
+                    break;
+                case "-ops":
+                    bench.ops = Integer.parseInt(value);
+                    break;
+                case "-warmup":
+                    bench.warmup = Integer.parseInt(value);
+                    break;
+                case "-iterations":
+                    bench.iterations = Integer.parseInt(value);
+                    break;
+                case "-seed":
+                    bench.seed = Long.parseLong(value);
+                    break;
+                case "-threads":
+                    for (String count : value.split(",")) {
+                        threads.add(Integer.parseInt(count));
+                    }
+                    break;
+                case "-reads":
+                    bench.readPercent = Integer.parseInt(value);
+                    break;
+                case "-millis":
+                    bench.millis = Integer.parseInt(value);
+                    break;
+                default:
+                    System.err.println("Error: Unknown option '" + args[i]
+                            + "'.");
+                    System.exit(1);
+            }
+        }
+
+        if (!threads.isEmpty()) {
+            System.out.printf("%-10s %8s %10s %14s%n",
+                    "map", "threads", "size", "result");
+            for (int size : sizes) {
+                Pair<Integer, Integer>[] pairs = sortedPairs(size);
+                for (String mapName : maps) {
+                    if (!THREAD_SAFE.contains(mapName)) {
+                        continue;
+                    }
+                    for (int count : threads) {
+                        double result = bench.throughput(MAPS.get(mapName),
+                                pairs, count);
+                        System.out.printf("%-10s %8d %10d %14.2f Mops/s%n",
+                                mapName, count, size, result);
+                    }
+                }
+            }
+            System.out.println("(checksum " + bench.blackhole + ")");
+            return;
+        }
+
+        System.out.printf("%-12s %-10s %-12s %10s %14s%n",
+                "map", "benchmark", "distribution", "size", "result");
+        for (int size : sizes) {
+            Pair<Integer, Integer>[] pairs = sortedPairs(size);
+            for (int d = 0; d < dists.size(); d++) {
+                String dist = dists.get(d);
+                int[] trace = trace(dist, size, bench.ops,
+                        new Random(bench.seed));
+                for (String mapName : maps) {
+                    Function<Pair<Integer, Integer>[], MyMap<Integer, Integer>>
+                            maker = MAPS.get(mapName);
+                    if (maker == null) {
+                        System.err.println("Error: Unknown map '" + mapName
+                                + "'.");
+                        System.exit(1);
+                    }
+                    for (String name : benchmarks) {
+                        boolean unordered = UNORDERED.contains(name);
+                        if (unordered && d > 0) {
+                            continue;
+                        }
+                        boolean memory = name.equals("memory");
+                        double result = memory ? bench.footprint(maker, pairs)
+                                : bench.measure(name, maker, pairs, trace);
+                        System.out.printf("%-12s %-10s %-12s %10d %14.1f %s%n",
+                                mapName, name, unordered ? "-" : dist, size,
+                                result, memory ? "bytes/entry" : "ns/op");
+                    }
+                }
+            }
+        }
+        System.out.println("(checksum " + bench.blackhole + ")");
+    }
+}
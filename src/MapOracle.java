@@ -0,0 +1,140 @@
+/**
+ * Randomized oracle shared by the test cases of the AVL map variants.
+ */
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class MapOracle {
+
+    private MapOracle() { }
+
+    /**
+     * Check of a map under test, given what the map should hold.
+     */
+    interface Check<K, V> {
+        void run(TreeMap<K, V> expected) throws Exception;
+    }
+
+    /**
+     * Read-only view of the nodes of an AVL tree, however they are stored.
+     * A missing child or parent is null.
+     */
+    interface Nodes<N, K extends Comparable<K>> {
+        N left(N n) throws Exception;
+
+        N right(N n) throws Exception;
+
+        /**
+         * Returns the parent of n. Trees without parent links return false
+         * from hasParents() and need not implement this.
+         */
+        N parent(N n) throws Exception;
+
+        int height(N n) throws Exception;
+
+        K key(N n) throws Exception;
+
+        default boolean hasParents() {
+            return true;
+        }
+    }
+
+    /**
+     * Applies the same seeded random puts and removes to map and to a
+     * java.util.TreeMap, checking that every call returns what the TreeMap
+     * returns. Keys are made from the numbers below keyCount by key, and the
+     * value of the i-th operation from i by value. Every checkEvery
+     * operations, and at the end, the sizes are compared and check is run;
+     * at the end every key is also looked up.
+     * @param map        the map under test
+     * @param seed       the seed of the random operations
+     * @param operations the number of operations
+     * @param keyCount   the number of distinct keys
+     * @param putChance  the probability that an operation is a put, not a remove
+     * @param checkEvery the number of operations between checks
+     * @param key        makes a key from a number below keyCount
+     * @param value      makes a value from the number of an operation
+     * @param check      the check of the map's own nodes
+     * @return what the map should hold at the end
+     */
+    static <K extends Comparable<K>, V> TreeMap<K, V> run(
+            MyMap<K, V> map, long seed, int operations, int keyCount, double putChance,
+            int checkEvery, IntFunction<K> key, IntFunction<V> value, Check<K, V> check)
+            throws Exception {
+        TreeMap<K, V> expected = new TreeMap<>();
+        Random random = new Random(seed);
+        for (int i = 0; i < operations; i++) {
+            K k = key.apply(random.nextInt(keyCount));
+            if (random.nextDouble() < putChance) {
+                V v = value.apply(i);
+                assertEquals(expected.put(k, v), map.put(k, v), "put " + k);
+            } else {
+                assertEquals(expected.remove(k), map.remove(k), "remove " + k);
+            }
+            if ((i + 1) % checkEvery == 0) {
+                assertEquals(expected.size(), map.size());
+                check.run(expected);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int i = 0; i < keyCount; i++) {
+            K k = key.apply(i);
+            assertEquals(expected.get(k), map.get(k), "get " + k);
+        }
+        check.run(expected);
+        return expected;
+    }
+
+    /**
+     * Recomputes the height of every node below n and checks it against the
+     * cached height, along with the AVL balance property, the order of the
+     * keys and, where the tree has them, the parent links.
+     * @param n     the root of the subtree to check, or null
+     * @param nodes the view of the tree's nodes
+     * @return the height of the subtree
+     */
+    static <N, K extends Comparable<K>> int checkAVL(N n, Nodes<N, K> nodes) throws Exception {
+        return checkAVL(n, nodes, null, null);
+    }
+
+    private static <N, K extends Comparable<K>> int checkAVL(N n, Nodes<N, K> nodes, K low, K high)
+            throws Exception {
+        if (n == null) {
+            return -1;
+        }
+        K key = nodes.key(n);
+        assertTrue(low == null || key.compareTo(low) > 0, "out of order at " + key);
+        assertTrue(high == null || key.compareTo(high) < 0, "out of order at " + key);
+        N left = nodes.left(n), right = nodes.right(n);
+        if (nodes.hasParents()) {
+            assertTrue(left == null || Objects.equals(nodes.parent(left), n), "bad parent at " + key);
+            assertTrue(right == null || Objects.equals(nodes.parent(right), n), "bad parent at " + key);
+        }
+        int leftHeight = checkAVL(left, nodes, low, key);
+        int rightHeight = checkAVL(right, nodes, key, high);
+        assertTrue(Math.abs(leftHeight - rightHeight) <= 1, "unbalanced at " + key);
+        assertEquals(Math.max(leftHeight, rightHeight) + 1, nodes.height(n), "stale height at " + key);
+        return nodes.height(n);
+    }
+
+    /**
+     * Returns the mappings of expected in the format of BSTMap.inorder().
+     * @param expected the mappings
+     * @return a String of the mappings in ascending key order
+     */
+    static String inorder(TreeMap<?, ?> expected) {
+        StringBuilder builder = new StringBuilder("[");
+        for (Map.Entry<?, ?> entry : expected.entrySet()) {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append('<').append(entry.getKey()).append(", ").append(entry.getValue()).append('>');
+        }
+        return builder.append(']').toString();
+    }
+}
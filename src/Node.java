@@ -1,13 +1,14 @@
 /**
  * Class for a Node containing a key-value mapping. Each node contains a
- * reference to the left child, right child, and parent.
+ * reference to the left child, right child, and parent, as well as the number
+ * of nodes in the subtree rooted at it.
  * @author Marissa Crevecoeur, mac2538
  * @version 1.0 October 19, 2022
  */
 public class Node<K, V> {
     Node<K, V> left, right, parent;
     K key;
-    int height;
+    int height, size;
     V value;
 
     /**
@@ -18,6 +19,7 @@ public class Node<K, V> {
     public Node(K key, V value) {
         this.key = key;
         this.value = value;
+        this.size = 1;
     }
 
     /**
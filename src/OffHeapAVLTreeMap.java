@@ -0,0 +1,452 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Class that implements an AVL tree which implements the MyMap interface for
+ * long keys and long values, with every node stored outside the Java heap.
+ * Nodes are fixed-width records in direct ByteBuffers:
+ *
+ *   offset  0: key    (long)
+ *   offset  8: value  (long)
+ *   offset 16: left   (int node index)
+ *   offset 20: right  (int node index)
+ *   offset 24: parent (int node index)
+ *   offset 28: height (int)
+ *
+ * The buffers are allocated in chunks of CHUNK_NODES nodes, so the tree can
+ * grow past the 2GB limit of a single buffer. Slots freed by remove are
+ * chained into a free list and reused, and compact() rewrites the live nodes
+ * into the smallest possible number of chunks. The MyMap methods box at the
+ * boundary; containsKey(long) and getOrDefault(long, long) do not. Keys and
+ * values are stored as primitive longs, so neither may be null.
+ * @author Marissa Crevecoeur, mac2538
+ * @version 1.0 October 16, 2026
+ */
+public class OffHeapAVLTreeMap implements MyMap<Long, Long> {
+    private static final int ALLOWED_IMBALANCE = 1;
+    private static final int NIL = -1;
+
+    private static final int KEY = 0, VALUE = 8, LEFT = 16, RIGHT = 20,
+            PARENT = 24, HEIGHT = 28, NODE_BYTES = 32;
+    private static final int CHUNK_SHIFT = 16, CHUNK_NODES = 1 << CHUNK_SHIFT,
+            CHUNK_MASK = CHUNK_NODES - 1;
+
+    private ByteBuffer[] chunks = new ByteBuffer[0];
+    private int root = NIL;
+    private int size;
+    // The first never-used slot, and the head of the free list of slots
+    // released by remove. Free slots are chained through their left field.
+    private int top, free = NIL;
+
+    /**
+     * Creates an empty off-heap AVL tree map. No memory is reserved until the
+     * first insertion.
+     */
+    public OffHeapAVLTreeMap() { }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if this map contains no key-value mappings.
+     * @return true if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of bytes of direct memory currently reserved for
+     * nodes, live or free.
+     * @return the number of bytes of direct memory held by this map
+     */
+    public long offHeapBytes() {
+        return (long) chunks.length * CHUNK_NODES * NODE_BYTES;
+    }
+
+    private ByteBuffer chunk(int n) {
+        return chunks[n >>> CHUNK_SHIFT];
+    }
+
+    private static int offset(int n, int field) {
+        return (n & CHUNK_MASK) * NODE_BYTES + field;
+    }
+
+    private long key(int n) {
+        return chunk(n).getLong(offset(n, KEY));
+    }
+
+    private long value(int n) {
+        return chunk(n).getLong(offset(n, VALUE));
+    }
+
+    private void setValue(int n, long value) {
+        chunk(n).putLong(offset(n, VALUE), value);
+    }
+
+    private int link(int n, int field) {
+        return chunk(n).getInt(offset(n, field));
+    }
+
+    private void setLink(int n, int field, int target) {
+        chunk(n).putInt(offset(n, field), target);
+    }
+
+    private int left(int n) {
+        return link(n, LEFT);
+    }
+
+    private int right(int n) {
+        return link(n, RIGHT);
+    }
+
+    private int parent(int n) {
+        return link(n, PARENT);
+    }
+
+    private int avlHeight(int n) {
+        return n == NIL ? -1 : link(n, HEIGHT);
+    }
+
+    private void updateHeight(int n) {
+        setLink(n, HEIGHT,
+                Math.max(avlHeight(left(n)), avlHeight(right(n))) + 1);
+    }
+
+    private int search(long key) {
+        int current = root;
+        while (current != NIL) {
+            long k = key(current);
+            if (key < k) {
+                current = left(current);
+            } else if (key > k) {
+                current = right(current);
+            } else {
+                return current;
+            }
+        }
+        return NIL;
+    }
+
+    /**
+     * Returns true if this map contains a mapping for the specified key.
+     * @param key the key whose presence is to be tested
+     * @return true if this map contains a mapping for the key
+     */
+    public boolean containsKey(long key) {
+        return search(key) != NIL;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or defaultValue
+     * if this map contains no mapping for the key.
+     * @param key          the key whose associated value is to be returned
+     * @param defaultValue the value to return if there is no mapping for key
+     * @return the value to which the key is mapped, or defaultValue
+     */
+    public long getOrDefault(long key, long defaultValue) {
+        int n = search(key);
+        return n != NIL ? value(n) : defaultValue;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key.
+     * @param  key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or null if this
+     *         map contains no mapping for the key
+     * @throws NullPointerException if key is null
+     */
+    public Long get(Long key) {
+        int n = search(Objects.requireNonNull(key, "key"));
+        return n != NIL ? value(n) : null;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map. If the
+     * map previously contained a mapping for the key, the old value is replaced
+     * by the specified value.
+     * @param key   the key with which the specified value is to be associated
+     * @param value the value to be associated with the specified key
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     * @throws NullPointerException if key or value is null
+     */
+    public Long put(Long key, Long value) {
+        long k = Objects.requireNonNull(key, "key");
+        long v = Objects.requireNonNull(value, "value");
+        int p = NIL, current = root;
+        boolean goLeft = false;
+        while (current != NIL) {
+            long currentKey = key(current);
+            if (k == currentKey) {
+                long oldValue = value(current);
+                setValue(current, v);
+                return oldValue;
+            }
+            p = current;
+            goLeft = k < currentKey;
+            current = goLeft ? left(current) : right(current);
+        }
+        int n = allocate(k, v);
+        setLink(n, PARENT, p);
+        if (p == NIL) {
+            root = n;
+        } else {
+            setLink(p, goLeft ? LEFT : RIGHT, n);
+        }
+        size++;
+        retrace(p);
+        return null;
+    }
+
+    /**
+     * Removes the mapping for a key from this map if it is present.
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     * @throws NullPointerException if key is null
+     */
+    public Long remove(Long key) {
+        int z = search(Objects.requireNonNull(key, "key"));
+        if (z == NIL) {
+            return null;
+        }
+        // The lowest node whose subtree lost a node.
+        int lowest;
+        if (left(z) == NIL || right(z) == NIL) {
+            lowest = parent(z);
+            transplant(z, left(z) != NIL ? left(z) : right(z));
+        } else {
+            int y = right(z);
+            while (left(y) != NIL) {
+                y = left(y);
+            }
+            if (parent(y) != z) {
+                lowest = parent(y);
+                transplant(y, right(y));
+                setLink(y, RIGHT, right(z));
+                setLink(right(y), PARENT, y);
+            } else {
+                lowest = y;
+            }
+            transplant(z, y);
+            setLink(y, LEFT, left(z));
+            setLink(left(y), PARENT, y);
+            setLink(y, HEIGHT, link(z, HEIGHT));
+        }
+        long oldValue = value(z);
+        setLink(z, LEFT, free);
+        free = z;
+        size--;
+        retrace(lowest);
+        return oldValue;
+    }
+
+    /**
+     * Returns the height of the tree. If the tree is null, the height is -1.
+     * @return the height of the tree
+     */
+    public int height() {
+        return avlHeight(root);
+    }
+
+    /**
+     * Removes every mapping and drops all of the direct buffers. The memory
+     * is returned to the operating system once the buffers are collected.
+     */
+    public void clear() {
+        chunks = new ByteBuffer[0];
+        root = free = NIL;
+        size = top = 0;
+    }
+
+    /**
+     * Rewrites the live nodes into freshly allocated chunks, in key order and
+     * as a perfectly balanced tree, and drops the old chunks. Afterwards the
+     * map holds no free slots and as few chunks as its size allows.
+     */
+    public void compact() {
+        ByteBuffer[] old = chunks;
+        int oldRoot = root;
+        chunks = new ByteBuffer[(size + CHUNK_NODES - 1) >>> CHUNK_SHIFT];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = newChunk();
+        }
+        // Walk the old tree in order, copying the i-th smallest node to slot
+        // i of the new chunks.
+        int n = oldRoot, i = 0;
+        while (n != NIL && link(old, n, LEFT) != NIL) {
+            n = link(old, n, LEFT);
+        }
+        while (n != NIL) {
+            chunks[i >>> CHUNK_SHIFT].putLong(offset(i, KEY),
+                    old[n >>> CHUNK_SHIFT].getLong(offset(n, KEY)));
+            chunks[i >>> CHUNK_SHIFT].putLong(offset(i, VALUE),
+                    old[n >>> CHUNK_SHIFT].getLong(offset(n, VALUE)));
+            i++;
+            if (link(old, n, RIGHT) != NIL) {
+                n = link(old, n, RIGHT);
+                while (link(old, n, LEFT) != NIL) {
+                    n = link(old, n, LEFT);
+                }
+            } else {
+                while (link(old, n, PARENT) != NIL
+                        && n == link(old, link(old, n, PARENT), RIGHT)) {
+                    n = link(old, n, PARENT);
+                }
+                n = link(old, n, PARENT);
+            }
+        }
+        root = createBST(0, size - 1);
+        if (root != NIL) {
+            setLink(root, PARENT, NIL);
+        }
+        top = size;
+        free = NIL;
+    }
+
+    private static int link(ByteBuffer[] chunks, int n, int field) {
+        return chunks[n >>> CHUNK_SHIFT].getInt(offset(n, field));
+    }
+
+    /**
+     * Links the already sorted slots low..high into a balanced tree, in the
+     * same divide-and-conquer manner as BSTMap.createBST.
+     */
+    private int createBST(int low, int high) {
+        if (low > high) {
+            return NIL;
+        }
+        int mid = low + (high - low) / 2;
+        int l = createBST(low, mid - 1), r = createBST(mid + 1, high);
+        setLink(mid, LEFT, l);
+        setLink(mid, RIGHT, r);
+        if (l != NIL) {
+            setLink(l, PARENT, mid);
+        }
+        if (r != NIL) {
+            setLink(r, PARENT, mid);
+        }
+        updateHeight(mid);
+        return mid;
+    }
+
+    private static ByteBuffer newChunk() {
+        return ByteBuffer.allocateDirect(CHUNK_NODES * NODE_BYTES)
+                .order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Takes a slot from the free list, or the next never-used slot, adding a
+     * chunk if all of them are full.
+     */
+    private int allocate(long key, long value) {
+        int n;
+        if (free != NIL) {
+            n = free;
+            free = left(n);
+        } else {
+            if (top == Integer.MAX_VALUE) {
+                throw new IllegalStateException("Map is full.");
+            }
+            if ((top >>> CHUNK_SHIFT) == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunks.length + 1);
+                chunks[chunks.length - 1] = newChunk();
+            }
+            n = top++;
+        }
+        ByteBuffer chunk = chunk(n);
+        chunk.putLong(offset(n, KEY), key);
+        chunk.putLong(offset(n, VALUE), value);
+        chunk.putInt(offset(n, LEFT), NIL);
+        chunk.putInt(offset(n, RIGHT), NIL);
+        chunk.putInt(offset(n, PARENT), NIL);
+        chunk.putInt(offset(n, HEIGHT), 0);
+        return n;
+    }
+
+    private void transplant(int u, int v) {
+        int p = parent(u);
+        if (p == NIL) {
+            root = v;
+        } else if (u == left(p)) {
+            setLink(p, LEFT, v);
+        } else {
+            setLink(p, RIGHT, v);
+        }
+        if (v != NIL) {
+            setLink(v, PARENT, p);
+        }
+    }
+
+    /**
+     * Rebalances the tree from n up towards the root after an insertion or a
+     * removal, stopping once a subtree's height no longer changes.
+     * @param n the lowest node whose subtree changed
+     */
+    private void retrace(int n) {
+        while (n != NIL) {
+            int oldHeight = avlHeight(n);
+            n = balance(n);
+            if (avlHeight(n) == oldHeight) {
+                return;
+            }
+            n = parent(n);
+        }
+    }
+
+    private int balance(int t) {
+        if (avlHeight(left(t)) - avlHeight(right(t)) > ALLOWED_IMBALANCE) {
+            int l = left(t);
+            if (avlHeight(left(l)) < avlHeight(right(l))) {
+                rotateWithRightChild(l);
+            }
+            t = rotateWithLeftChild(t);
+        } else if (avlHeight(right(t)) - avlHeight(left(t))
+                > ALLOWED_IMBALANCE) {
+            int r = right(t);
+            if (avlHeight(right(r)) < avlHeight(left(r))) {
+                rotateWithLeftChild(r);
+            }
+            t = rotateWithRightChild(t);
+        }
+        updateHeight(t);
+        return t;
+    }
+
+    private int rotateWithLeftChild(int k2) {
+        int k1 = left(k2);
+        setLink(k2, LEFT, right(k1));
+        if (left(k2) != NIL) {
+            setLink(left(k2), PARENT, k2);
+        }
+        transplant(k2, k1);
+        setLink(k1, RIGHT, k2);
+        setLink(k2, PARENT, k1);
+        updateHeight(k2);
+        updateHeight(k1);
+        return k1;
+    }
+
+    private int rotateWithRightChild(int k1) {
+        int k2 = right(k1);
+        setLink(k1, RIGHT, left(k2));
+        if (right(k1) != NIL) {
+            setLink(right(k1), PARENT, k1);
+        }
+        transplant(k1, k2);
+        setLink(k2, LEFT, k1);
+        setLink(k1, PARENT, k2);
+        updateHeight(k1);
+        updateHeight(k2);
+        return k2;
+    }
+}
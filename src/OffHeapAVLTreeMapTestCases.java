@@ -0,0 +1,117 @@
+/**
+ * Test cases for OffHeapAVLTreeMap.
+ */
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapAVLTreeMapTestCases {
+
+    @Test
+    public void testPutRemove01() {
+        OffHeapAVLTreeMap map = new OffHeapAVLTreeMap();
+        assertTrue(map.isEmpty());
+        assertEquals(0, map.offHeapBytes());
+        assertNull(map.put(10L, 100L));
+        assertNull(map.put(Long.MIN_VALUE, 1L));
+        assertEquals(100L, map.put(10L, 101L));
+        assertEquals(101L, map.get(10L));
+        assertEquals(-1, map.getOrDefault(11L, -1));
+        assertTrue(map.containsKey(Long.MIN_VALUE));
+        assertEquals(1L, map.remove(Long.MIN_VALUE));
+        assertNull(map.remove(Long.MIN_VALUE));
+        assertEquals(1, map.size());
+        // Keys and values are primitive longs off the heap, so nulls are refused.
+        assertThrows(NullPointerException.class, () -> map.get(null));
+        assertThrows(NullPointerException.class, () -> map.put(null, 1L));
+        assertThrows(NullPointerException.class, () -> map.put(10L, null));
+        assertThrows(NullPointerException.class, () -> map.remove(null));
+        assertEquals(101L, map.get(10L));
+        assertEquals(1, map.size());
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(10L));
+    }
+
+    private static Method accessor(String name) throws ReflectiveOperationException {
+        Method method = OffHeapAVLTreeMap.class.getDeclaredMethod(name, int.class);
+        method.setAccessible(true);
+        return method;
+    }
+
+    /**
+     * Checks every node of map with MapOracle.checkAVL(), reading the node
+     * records through the map's own accessors. Nodes are slot numbers, and
+     * NIL (-1) is read as null.
+     */
+    private static void checkNodes(OffHeapAVLTreeMap map) throws Exception {
+        Method left = accessor("left"), right = accessor("right"), parent = accessor("parent");
+        Method height = accessor("avlHeight"), key = accessor("key");
+        Field rootField = OffHeapAVLTreeMap.class.getDeclaredField("root");
+        rootField.setAccessible(true);
+        int root = rootField.getInt(map);
+        MapOracle.checkAVL(root < 0 ? null : root, new MapOracle.Nodes<Integer, Long>() {
+            private Integer link(Method method, int n) throws ReflectiveOperationException {
+                int target = (int) method.invoke(map, n);
+                return target < 0 ? null : target;
+            }
+
+            public Integer left(Integer n) throws ReflectiveOperationException {
+                return link(left, n);
+            }
+
+            public Integer right(Integer n) throws ReflectiveOperationException {
+                return link(right, n);
+            }
+
+            public Integer parent(Integer n) throws ReflectiveOperationException {
+                return link(parent, n);
+            }
+
+            public int height(Integer n) throws ReflectiveOperationException {
+                return (int) height.invoke(map, n);
+            }
+
+            public Long key(Integer n) throws ReflectiveOperationException {
+                return (long) key.invoke(map, n);
+            }
+        });
+    }
+
+    @Test
+    public void testRandom01() throws Exception {
+        OffHeapAVLTreeMap map = new OffHeapAVLTreeMap();
+        MapOracle.run(map, 3134, 300_000, 100_000, 2.0 / 3, 50_000,
+                key -> (long) key, i -> (long) i, e -> checkNodes(map));
+    }
+
+    @Test
+    public void testCompact01() throws Exception {
+        OffHeapAVLTreeMap map = new OffHeapAVLTreeMap();
+        for (long key = 0; key < 200_000; key++) {
+            map.put(key, -key);
+        }
+        long before = map.offHeapBytes();
+        for (long key = 0; key < 200_000; key++) {
+            if (key % 10 != 0) {
+                map.remove(key);
+            }
+        }
+        map.compact();
+        assertTrue(map.offHeapBytes() < before);
+        assertEquals(20_000, map.size());
+        assertEquals(14, map.height());
+        checkNodes(map);
+        for (long key = 0; key < 200_000; key++) {
+            assertEquals(key % 10 == 0 ? Long.valueOf(-key) : null, map.get(key));
+        }
+        // The compacted tree keeps working normally.
+        map.put(5L, 5L);
+        assertEquals(5L, map.remove(5L));
+        assertEquals(0L, map.remove(0L));
+        assertEquals(19_999, map.size());
+    }
+}
@@ -0,0 +1,344 @@
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Class that implements a persistent AVL tree map. Its nodes are immutable and
+ * have no parent pointers, so put and remove never change a node in place:
+ * they copy the O(log n) nodes on the path from the root to the change,
+ * rebalance the copies with the same rules as AVLTreeMap.balance(), and swap
+ * in the new root. Every other node is shared with the previous version of
+ * the tree.
+ *
+ * Because no version of the tree is ever modified, snapshot() is O(1): it
+ * hands out the current root. A snapshot can be read, from any thread, while
+ * this map keeps changing, and always sees the map exactly as it was when the
+ * snapshot was taken. Updates to a single map must still come from one thread
+ * at a time.
+ * @author Marissa Crevecoeur, mac2538
+ * @version 1.0 October 16, 2026
+ */
+public class PersistentAVLTreeMap<K extends Comparable<K>, V>
+        implements MyMap<K, V>, Iterable<Pair<K, V>> {
+    private static final int ALLOWED_IMBALANCE = 1;
+    // The whole state of the map, including its size, hangs off the root, so
+    // publishing a new root publishes a complete version of the tree.
+    private volatile PersistentNode<K, V> root;
+
+    /**
+     * Creates an empty persistent AVL tree map.
+     */
+    public PersistentAVLTreeMap() { }
+
+    private PersistentAVLTreeMap(PersistentNode<K, V> root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns an independent copy of this map as it is now. The copy shares
+     * all of its nodes with this map, so this takes O(1) time and space, and
+     * later changes to either map are not seen by the other.
+     * @return a snapshot of this map
+     */
+    public PersistentAVLTreeMap<K, V> snapshot() {
+        return new PersistentAVLTreeMap<>(root);
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Returns true if this map contains no key-value mappings.
+     * @return true if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    private PersistentNode<K, V> search(K key) {
+        PersistentNode<K, V> current = root;
+        while (current != null) {
+            int comparison = key.compareTo(current.key);
+            if (comparison < 0) {
+                current = current.left;
+            } else if (comparison > 0) {
+                current = current.right;
+            } else {
+                return current;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key.
+     * @param  key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or null if this
+     *         map contains no mapping for the key
+     */
+    public V get(K key) {
+        PersistentNode<K, V> n = search(key);
+        return n != null ? n.value : null;
+    }
+
+    /**
+     * Returns true if this map contains a mapping for the specified key.
+     * @param key the key whose presence is to be tested
+     * @return true if this map contains a mapping for the key
+     */
+    public boolean containsKey(K key) {
+        return search(key) != null;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map. If the
+     * map previously contained a mapping for the key, the old value is replaced
+     * by the specified value. Snapshots taken earlier are not affected.
+     * @param key   the key with which the specified value is to be associated
+     * @param value the value to be associated with the specified key
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     */
+    public V put(K key, V value) {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        PersistentNode<K, V>[] found = new PersistentNode[1];
+        root = insert(root, key, value, found);
+        return found[0] != null ? found[0].value : null;
+    }
+
+    /**
+     * Returns t with key mapped to value, copying the nodes on the path to
+     * key. The node that already held key, if any, is left in found[0]. If it
+     * already held value, nothing is copied and t itself is returned.
+     */
+    private PersistentNode<K, V> insert(PersistentNode<K, V> t, K key,
+                                        V value, PersistentNode<K, V>[] found) {
+        if (t == null) {
+            return new PersistentNode<>(key, value, null, null);
+        }
+        int comparison = key.compareTo(t.key);
+        if (comparison < 0) {
+            PersistentNode<K, V> left = insert(t.left, key, value, found);
+            return left == t.left ? t : balance(t.key, t.value, left, t.right);
+        } else if (comparison > 0) {
+            PersistentNode<K, V> right = insert(t.right, key, value, found);
+            return right == t.right ? t : balance(t.key, t.value, t.left, right);
+        }
+        found[0] = t;
+        if (t.value == value) {
+            return t;
+        }
+        return new PersistentNode<>(key, value, t.left, t.right);
+    }
+
+    /**
+     * Removes the mapping for a key from this map if it is present. Snapshots
+     * taken earlier are not affected.
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     */
+    public V remove(K key) {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        PersistentNode<K, V>[] found = new PersistentNode[1];
+        root = delete(root, key, found);
+        return found[0] != null ? found[0].value : null;
+    }
+
+    /**
+     * Returns t without key, copying the nodes on the path to key. The
+     * removed node is left in found[0]. If key is absent, nothing is copied
+     * and t itself is returned.
+     */
+    private PersistentNode<K, V> delete(PersistentNode<K, V> t, K key,
+                                        PersistentNode<K, V>[] found) {
+        if (t == null) {
+            return null;
+        }
+        int comparison = key.compareTo(t.key);
+        if (comparison < 0) {
+            PersistentNode<K, V> left = delete(t.left, key, found);
+            return left == t.left ? t : balance(t.key, t.value, left, t.right);
+        } else if (comparison > 0) {
+            PersistentNode<K, V> right = delete(t.right, key, found);
+            return right == t.right ? t : balance(t.key, t.value, t.left, right);
+        }
+        found[0] = t;
+        if (t.left == null) {
+            return t.right;
+        } else if (t.right == null) {
+            return t.left;
+        }
+        // Replace t with its successor, the smallest node of its right subtree.
+        PersistentNode<K, V> successor = t.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.key, successor.value, t.left,
+                       deleteMin(t.right));
+    }
+
+    private PersistentNode<K, V> deleteMin(PersistentNode<K, V> t) {
+        if (t.left == null) {
+            return t.right;
+        }
+        return balance(t.key, t.value, deleteMin(t.left), t.right);
+    }
+
+    /**
+     * Returns the smallest key in this map, or null if the map is empty.
+     * @return the smallest key in this map
+     */
+    public K firstKey() {
+        PersistentNode<K, V> n = root;
+        if (n == null) {
+            return null;
+        }
+        while (n.left != null) {
+            n = n.left;
+        }
+        return n.key;
+    }
+
+    /**
+     * Returns the largest key in this map, or null if the map is empty.
+     * @return the largest key in this map
+     */
+    public K lastKey() {
+        PersistentNode<K, V> n = root;
+        if (n == null) {
+            return null;
+        }
+        while (n.right != null) {
+            n = n.right;
+        }
+        return n.key;
+    }
+
+    /**
+     * Returns the height of the tree. If the tree is null, the height is -1.
+     * @return the height of the tree
+     */
+    public int height() {
+        return avlHeight(root);
+    }
+
+    /**
+     * Builds the node (key, value, left, right), restoring the AVL balance
+     * property at it if left and right differ in height by two. Rotations
+     * build new nodes rather than relinking old ones, which may be shared
+     * with other versions of the tree.
+     */
+    private static <K, V> PersistentNode<K, V> balance(
+            K key, V value, PersistentNode<K, V> left,
+            PersistentNode<K, V> right) {
+        if (avlHeight(left) - avlHeight(right) > ALLOWED_IMBALANCE) {
+            if (avlHeight(left.left) >= avlHeight(left.right)) {
+                // Single rotation with the left child.
+                return new PersistentNode<>(left.key, left.value, left.left,
+                        new PersistentNode<>(key, value, left.right, right));
+            }
+            // Double rotation: the left child's right child becomes the root.
+            PersistentNode<K, V> lr = left.right;
+            return new PersistentNode<>(lr.key, lr.value,
+                    new PersistentNode<>(left.key, left.value, left.left,
+                                         lr.left),
+                    new PersistentNode<>(key, value, lr.right, right));
+        } else if (avlHeight(right) - avlHeight(left) > ALLOWED_IMBALANCE) {
+            if (avlHeight(right.right) >= avlHeight(right.left)) {
+                // Single rotation with the right child.
+                return new PersistentNode<>(right.key, right.value,
+                        new PersistentNode<>(key, value, left, right.left),
+                        right.right);
+            }
+            // Double rotation: the right child's left child becomes the root.
+            PersistentNode<K, V> rl = right.left;
+            return new PersistentNode<>(rl.key, rl.value,
+                    new PersistentNode<>(key, value, left, rl.left),
+                    new PersistentNode<>(right.key, right.value, rl.right,
+                                         right.right));
+        }
+        return new PersistentNode<>(key, value, left, right);
+    }
+
+    private static int avlHeight(PersistentNode<?, ?> t) {
+        return t == null ? -1 : t.height;
+    }
+
+    private static int size(PersistentNode<?, ?> t) {
+        return t == null ? 0 : t.size;
+    }
+
+    /**
+     * Returns an iterator over the key-value pairs in ascending key order. The
+     * iterator walks the version of the tree that was current when it was
+     * created, so it is never affected by later changes to the map.
+     * @return an iterator over the key-value pairs of this map
+     */
+    public Iterator<Pair<K, V>> iterator() {
+        ArrayDeque<PersistentNode<K, V>> stack = new ArrayDeque<>();
+        for (PersistentNode<K, V> n = root; n != null; n = n.left) {
+            stack.push(n);
+        }
+        return new Iterator<Pair<K, V>>() {
+            public boolean hasNext() {
+                return !stack.isEmpty();
+            }
+
+            public Pair<K, V> next() {
+                if (stack.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                PersistentNode<K, V> n = stack.pop();
+                for (PersistentNode<K, V> c = n.right; c != null; c = c.left) {
+                    stack.push(c);
+                }
+                return new Pair<>(n.key, n.value);
+            }
+        };
+    }
+
+    /**
+     * Returns a String of the key-value pairs in ascending key order, in the
+     * same format as BSTMap.inorder().
+     * @return a String representation of the map
+     */
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (Pair<K, V> pair : this) {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append('<').append(pair.key).append(", ").append(pair.value)
+                   .append('>');
+        }
+        return builder.append(']').toString();
+    }
+
+    /**
+     * Immutable node of a PersistentAVLTreeMap. Its height and subtree size are
+     * computed from its children when it is built.
+     */
+    private static class PersistentNode<K, V> {
+        final K key;
+        final V value;
+        final PersistentNode<K, V> left, right;
+        final int height, size;
+
+        PersistentNode(K key, V value, PersistentNode<K, V> left,
+                       PersistentNode<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(avlHeight(left), avlHeight(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * Test cases for PersistentAVLTreeMap.
+ */
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentAVLTreeMapTestCases {
+
+    @Test
+    public void testPutRemove01() {
+        PersistentAVLTreeMap<Integer, String> map = new PersistentAVLTreeMap<>();
+        assertEquals("[]", map.toString());
+        assertTrue(map.isEmpty());
+        assertNull(map.firstKey());
+        assertNull(map.lastKey());
+        assertNull(map.put(5, "a"));
+        assertNull(map.put(3, "b"));
+        assertNull(map.put(8, "c"));
+        assertEquals("b", map.put(3, "d"));
+        assertEquals("[<3, d>, <5, a>, <8, c>]", map.toString());
+        assertEquals(3, map.firstKey());
+        assertEquals(8, map.lastKey());
+        assertEquals("a", map.remove(5));
+        assertNull(map.remove(5));
+        assertFalse(map.containsKey(5));
+        assertEquals(2, map.size());
+        assertEquals("[<3, d>, <8, c>]", map.toString());
+    }
+
+    @Test
+    public void testSnapshot01() {
+        PersistentAVLTreeMap<Integer, Integer> map = new PersistentAVLTreeMap<>();
+        for (int i = 0; i < 10; i++) {
+            map.put(i, i);
+        }
+        PersistentAVLTreeMap<Integer, Integer> snapshot = map.snapshot();
+        map.put(3, 30);
+        map.remove(7);
+        map.put(10, 10);
+        assertEquals(10, snapshot.size());
+        assertEquals(3, snapshot.get(3));
+        assertEquals(7, snapshot.get(7));
+        assertNull(snapshot.get(10));
+        assertEquals(30, map.get(3));
+        assertNull(map.get(7));
+        // Changing the snapshot leaves the map alone too.
+        snapshot.remove(0);
+        assertEquals(0, map.get(0));
+        assertEquals(9, snapshot.size());
+        assertEquals(10, map.size());
+    }
+
+    private static final class CountingKey implements Comparable<CountingKey> {
+        static long comparisons;
+        final int value;
+
+        CountingKey(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(CountingKey other) {
+            comparisons++;
+            return Integer.compare(value, other.value);
+        }
+    }
+
+    @Test
+    public void testSingleDescent01() throws Exception {
+        // Each write descends the tree once, so it makes at most one
+        // comparison per level, whether or not the key is present.
+        PersistentAVLTreeMap<CountingKey, Integer> map = new PersistentAVLTreeMap<>();
+        for (int i = 0; i < 1000; i += 2) {
+            map.put(new CountingKey(i), i);
+        }
+        int levels = map.height() + 1;
+        for (int i = 0; i < 1000; i++) {
+            CountingKey.comparisons = 0;
+            map.put(new CountingKey(i), i);
+            assertTrue(CountingKey.comparisons <= levels, "put " + i);
+            levels = map.height() + 1;
+        }
+        for (int i = 0; i < 2000; i += 3) {
+            CountingKey.comparisons = 0;
+            map.remove(new CountingKey(i));
+            assertTrue(CountingKey.comparisons <= levels, "remove " + i);
+            levels = map.height() + 1;
+        }
+        // Putting a value that is already there, or removing an absent key,
+        // copies nothing.
+        Object root = field(map, "root");
+        Integer value = map.get(new CountingKey(4));
+        assertSame(value, map.put(new CountingKey(4), value));
+        assertNull(map.remove(new CountingKey(3)));
+        assertSame(root, field(map, "root"));
+    }
+
+    private static Object field(Object object, String name) throws ReflectiveOperationException {
+        Field field = object.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(object);
+    }
+
+    /**
+     * Checks every node of map with MapOracle.checkAVL(). Persistent nodes
+     * have no parent links, so only heights, balance and key order are
+     * checked.
+     */
+    private static void checkNodes(PersistentAVLTreeMap<Integer, Integer> map) throws Exception {
+        MapOracle.checkAVL(field(map, "root"), new MapOracle.Nodes<Object, Integer>() {
+            public Object left(Object n) throws ReflectiveOperationException {
+                return field(n, "left");
+            }
+
+            public Object right(Object n) throws ReflectiveOperationException {
+                return field(n, "right");
+            }
+
+            public Object parent(Object n) {
+                throw new UnsupportedOperationException();
+            }
+
+            public int height(Object n) throws ReflectiveOperationException {
+                return (int) field(n, "height");
+            }
+
+            public Integer key(Object n) throws ReflectiveOperationException {
+                return (Integer) field(n, "key");
+            }
+
+            public boolean hasParents() {
+                return false;
+            }
+        });
+    }
+
+    @Test
+    public void testRandom01() throws Exception {
+        PersistentAVLTreeMap<Integer, Integer> map = new PersistentAVLTreeMap<>();
+        List<PersistentAVLTreeMap<Integer, Integer>> snapshots = new ArrayList<>();
+        List<String> contents = new ArrayList<>();
+        TreeMap<Integer, Integer> expected = MapOracle.run(map, 3134, 50_000, 2000, 0.5, 5000,
+                key -> key, i -> i, e -> {
+                    checkNodes(map);
+                    snapshots.add(map.snapshot());
+                    contents.add(MapOracle.inorder(e));
+                });
+        assertEquals(MapOracle.inorder(expected), map.toString());
+        // Every snapshot still holds exactly what the map held when it was
+        // taken, in a tree that is still balanced.
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertEquals(contents.get(i), snapshots.get(i).toString());
+            checkNodes(snapshots.get(i));
+        }
+    }
+
+    @Test
+    public void testIterator01() {
+        PersistentAVLTreeMap<Integer, Integer> map = new PersistentAVLTreeMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+        }
+        int expected = 0;
+        for (Pair<Integer, Integer> pair : map) {
+            // Changes made during iteration are not seen by the iterator.
+            map.remove(expected + 1);
+            assertEquals(expected++, pair.key);
+        }
+        assertEquals(100, expected);
+        assertEquals(1, map.size());
+    }
+}
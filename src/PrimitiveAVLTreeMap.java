@@ -0,0 +1,256 @@
+/**
+ * Base class of the AVL tree maps with primitive keys, IntAVLTreeMap and
+ * LongAVLTreeMap. It holds everything that does not depend on the type of
+ * the key: the node links and cached heights, rebalancing, unlinking a node
+ * and walking the nodes in order. Subclasses add a node class holding the key
+ * unboxed, and the descents that compare keys with the native operators.
+ * @param <N> the node class of the subclass
+ * @param <V> the type of the mapped values
+ * @author Marissa Crevecoeur, mac2538
+ * @version 1.0 October 16, 2026
+ */
+abstract class PrimitiveAVLTreeMap<N extends PrimitiveAVLTreeMap.AVLNode<N, V>, V> {
+    private static final int ALLOWED_IMBALANCE = 1;
+    N root;
+    int size;
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if this map contains no key-value mappings.
+     * @return true if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the height of the tree. If the tree is null, the height is -1.
+     * @return the height of the tree
+     */
+    public int height() {
+        return avlHeight(root);
+    }
+
+    /**
+     * Links n, a new node, in as the left or right child of parent, or as the
+     * root if parent is null, and rebalances the tree above it.
+     * @param parent the last node on the search path for n's key, or null
+     * @param n      the new node
+     * @param left   whether n's key is below parent's
+     */
+    final void attach(N parent, N n, boolean left) {
+        n.parent = parent;
+        if (parent == null) {
+            root = n;
+        } else if (left) {
+            parent.left = n;
+        } else {
+            parent.right = n;
+        }
+        size++;
+        retrace(parent);
+    }
+
+    /**
+     * Unlinks z from the tree and rebalances it. If z has two children, its
+     * successor is relinked into its place.
+     * @param z a node of this tree
+     * @return the value z held
+     */
+    final V unlink(N z) {
+        // The lowest node whose subtree lost a node.
+        N lowest;
+        if (z.left == null || z.right == null) {
+            lowest = z.parent;
+            transplant(z, z.left != null ? z.left : z.right);
+        } else {
+            N y = z.right;
+            while (y.left != null) {
+                y = y.left;
+            }
+            if (y.parent != z) {
+                lowest = y.parent;
+                transplant(y, y.right);
+                y.right = z.right;
+                y.right.parent = y;
+            } else {
+                lowest = y;
+            }
+            transplant(z, y);
+            y.left = z.left;
+            y.left.parent = y;
+            y.height = z.height;
+        }
+        z.left = z.right = z.parent = null;
+        size--;
+        retrace(lowest);
+        return z.value;
+    }
+
+    /**
+     * Returns the node with the smallest key, or null if the map is empty.
+     */
+    final N first() {
+        N n = root;
+        while (n != null && n.left != null) {
+            n = n.left;
+        }
+        return n;
+    }
+
+    /**
+     * Returns the node with the largest key, or null if the map is empty.
+     */
+    final N last() {
+        N n = root;
+        while (n != null && n.right != null) {
+            n = n.right;
+        }
+        return n;
+    }
+
+    /**
+     * Returns the node after n in key order, found along the parent pointers,
+     * or null if n is the last.
+     */
+    final N successor(N n) {
+        if (n.right != null) {
+            n = n.right;
+            while (n.left != null) {
+                n = n.left;
+            }
+            return n;
+        }
+        while (n.parent != null && n == n.parent.right) {
+            n = n.parent;
+        }
+        return n.parent;
+    }
+
+    private void transplant(N u, N v) {
+        if (u.parent == null) {
+            root = v;
+        } else if (u == u.parent.left) {
+            u.parent.left = v;
+        } else {
+            u.parent.right = v;
+        }
+        if (v != null) {
+            v.parent = u.parent;
+        }
+    }
+
+    /**
+     * Rebalances the tree from n up towards the root after an insertion or a
+     * removal, stopping once a subtree's height no longer changes.
+     * @param n the lowest node whose subtree changed
+     */
+    private void retrace(N n) {
+        while (n != null) {
+            int oldHeight = n.height;
+            n = balance(n);
+            if (n.height == oldHeight) {
+                return;
+            }
+            n = n.parent;
+        }
+    }
+
+    private N balance(N t) {
+        if (avlHeight(t.left) - avlHeight(t.right) > ALLOWED_IMBALANCE) {
+            if (avlHeight(t.left.left) >= avlHeight(t.left.right)) {
+                t = rotateWithLeftChild(t);
+            } else {
+                rotateWithRightChild(t.left);
+                t = rotateWithLeftChild(t);
+            }
+        } else if (avlHeight(t.right) - avlHeight(t.left) > ALLOWED_IMBALANCE) {
+            if (avlHeight(t.right.right) >= avlHeight(t.right.left)) {
+                t = rotateWithRightChild(t);
+            } else {
+                rotateWithLeftChild(t.right);
+                t = rotateWithRightChild(t);
+            }
+        }
+        t.height = Math.max(avlHeight(t.left), avlHeight(t.right)) + 1;
+        return t;
+    }
+
+    static int avlHeight(AVLNode<?, ?> t) {
+        return t == null ? -1 : t.height;
+    }
+
+    private N rotateWithLeftChild(N k2) {
+        N k1 = k2.left;
+        k2.left = k1.right;
+        if (k2.left != null) {
+            k2.left.parent = k2;
+        }
+        transplant(k2, k1);
+        k1.right = k2;
+        k2.parent = k1;
+        k2.height = Math.max(avlHeight(k2.left), avlHeight(k2.right)) + 1;
+        k1.height = Math.max(avlHeight(k1.left), k2.height) + 1;
+        return k1;
+    }
+
+    private N rotateWithRightChild(N k1) {
+        N k2 = k1.right;
+        k1.right = k2.left;
+        if (k1.right != null) {
+            k1.right.parent = k1;
+        }
+        transplant(k1, k2);
+        k2.left = k1;
+        k1.parent = k2;
+        k1.height = Math.max(avlHeight(k1.left), avlHeight(k1.right)) + 1;
+        k2.height = Math.max(avlHeight(k2.right), k1.height) + 1;
+        return k2;
+    }
+
+    /**
+     * Returns a String of the key-value pairs in ascending key order, in the
+     * same format as BSTMap.inorder().
+     * @return a String representation of the map
+     */
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (N n = first(); n != null; ) {
+            builder.append('<');
+            n.appendKey(builder);
+            builder.append(", ").append(n.value).append('>');
+            n = successor(n);
+            if (n != null) {
+                builder.append(", ");
+            }
+        }
+        return builder.append(']').toString();
+    }
+
+    /**
+     * Node of a PrimitiveAVLTreeMap. Subclasses add the key, unboxed.
+     * @param <N> the node class itself
+     * @param <V> the type of the mapped value
+     */
+    abstract static class AVLNode<N extends AVLNode<N, V>, V> {
+        N left, right, parent;
+        int height;
+        V value;
+
+        AVLNode(V value) {
+            this.value = value;
+        }
+
+        /**
+         * Appends the key of this node to builder without boxing it.
+         */
+        abstract void appendKey(StringBuilder builder);
+    }
+}
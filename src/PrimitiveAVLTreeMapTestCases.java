@@ -0,0 +1,133 @@
+/**
+ * Test cases for IntAVLTreeMap and LongAVLTreeMap.
+ */
+import org.junit.jupiter.api.Test;
+
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrimitiveAVLTreeMapTestCases {
+
+    /**
+     * Returns a view of the nodes of a PrimitiveAVLTreeMap for
+     * MapOracle.checkAVL(), reading each key as a long.
+     */
+    private static <N extends PrimitiveAVLTreeMap.AVLNode<N, ?>> MapOracle.Nodes<N, Long> nodes(
+            ToLongFunction<N> key) {
+        return new MapOracle.Nodes<N, Long>() {
+            public N left(N n) {
+                return n.left;
+            }
+
+            public N right(N n) {
+                return n.right;
+            }
+
+            public N parent(N n) {
+                return n.parent;
+            }
+
+            public int height(N n) {
+                return n.height;
+            }
+
+            public Long key(N n) {
+                return key.applyAsLong(n);
+            }
+        };
+    }
+
+    @Test
+    public void testPutRemove01() {
+        IntAVLTreeMap<String> map = new IntAVLTreeMap<>();
+        assertEquals("[]", map.toString());
+        assertTrue(map.isEmpty());
+        assertNull(map.put(10, "a"));
+        assertNull(map.put(2, "b"));
+        assertEquals("b", map.put(2, "c"));
+        assertNull(map.put(Integer.MIN_VALUE, "min"));
+        assertNull(map.put(Integer.MAX_VALUE, "max"));
+        assertEquals("[<-2147483648, min>, <2, c>, <10, a>, <2147483647, max>]", map.toString());
+        assertEquals(Integer.MIN_VALUE, map.firstKey());
+        assertEquals(Integer.MAX_VALUE, map.lastKey());
+        assertEquals("a", map.remove(10));
+        assertNull(map.remove(10));
+        assertFalse(map.containsKey(10));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    public void testPutRemove02() {
+        LongAVLTreeMap<String> map = new LongAVLTreeMap<>();
+        assertThrows(java.util.NoSuchElementException.class, map::firstKey);
+        assertNull(map.put(10, "a"));
+        assertNull(map.put(Long.MIN_VALUE, "min"));
+        assertNull(map.put(Long.MAX_VALUE, "max"));
+        assertEquals("[<-9223372036854775808, min>, <10, a>, <9223372036854775807, max>]", map.toString());
+        assertEquals(Long.MIN_VALUE, map.firstKey());
+        assertEquals(Long.MAX_VALUE, map.lastKey());
+        assertEquals("a", map.remove(10));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void testRandom01() throws Exception {
+        IntAVLTreeMap<Integer> map = new IntAVLTreeMap<>();
+        MyMap<Integer, Integer> view = new MyMap<Integer, Integer>() {
+            public int size() {
+                return map.size();
+            }
+
+            public boolean isEmpty() {
+                return map.isEmpty();
+            }
+
+            public Integer get(Integer key) {
+                return map.get(key);
+            }
+
+            public Integer put(Integer key, Integer value) {
+                return map.put(key, value);
+            }
+
+            public Integer remove(Integer key) {
+                return map.remove(key);
+            }
+        };
+        TreeMap<Integer, Integer> expected = MapOracle.run(view, 3134, 100_000, 5000, 0.5, 10_000,
+                key -> key, i -> i, e -> MapOracle.checkAVL(map.root, nodes(n -> n.key)));
+        assertEquals(MapOracle.inorder(expected), map.toString());
+    }
+
+    @Test
+    public void testRandom02() throws Exception {
+        // Keys spread well beyond the range of an int.
+        LongAVLTreeMap<Integer> map = new LongAVLTreeMap<>();
+        MyMap<Long, Integer> view = new MyMap<Long, Integer>() {
+            public int size() {
+                return map.size();
+            }
+
+            public boolean isEmpty() {
+                return map.isEmpty();
+            }
+
+            public Integer get(Long key) {
+                return map.get(key);
+            }
+
+            public Integer put(Long key, Integer value) {
+                return map.put(key, value);
+            }
+
+            public Integer remove(Long key) {
+                return map.remove(key);
+            }
+        };
+        TreeMap<Long, Integer> expected = MapOracle.run(view, 3134, 100_000, 5000, 0.5, 10_000,
+                key -> key * 1_000_000_007L, i -> i, e -> MapOracle.checkAVL(map.root, nodes(n -> n.key)));
+        assertEquals(MapOracle.inorder(expected), map.toString());
+    }
+}
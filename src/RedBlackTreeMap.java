@@ -0,0 +1,375 @@
+/**
+ * Class that implements a red-black tree which implements the MyMap
+ * interface.
+ *
+ * A red-black tree is balanced more loosely than an AVL tree: no path from a
+ * node down to a null reference is more than twice as long as another, so
+ * the height stays below 2 log2(n + 1). In exchange, an insertion does at
+ * most two rotations and a removal at most three, whereas an AVL tree may
+ * rotate at every level on the way back up after a removal. Recolorings
+ * may still walk up the tree, but they only write a flag. This makes the
+ * tree a better fit than AVLTreeMap for write-heavy workloads, at the price
+ * of slightly longer search paths.
+ *
+ * Insertion and removal follow Cormen et al., "Introduction to Algorithms",
+ * with null references standing in for the black sentinel leaves, and reuse
+ * BSTMap's transplant() and treeMinimum(). The color of each node is kept in
+ * an RBNode, a Node with one extra field.
+ * @author Marissa Crevecoeur, mac2538
+ * @version 1.0 October 16, 2026
+ */
+public class RedBlackTreeMap<K extends Comparable<K>, V> extends BSTMap<K, V>
+        implements MyMap<K, V> {
+
+    /**
+     * Creates an empty red-black tree map.
+     */
+    public RedBlackTreeMap() { }
+
+    /**
+     * Creates a red-black tree map of the given key-value pairs, inserted in
+     * the order they are received.
+     * @param elements an array of key-value pairs
+     */
+    public RedBlackTreeMap(Pair<K, V>[] elements) {
+        insertElements(elements);
+    }
+
+    /**
+     * Creates a red-black tree map of the given key-value pairs. If sorted is
+     * true, a balanced tree will be created via a divide-and-conquer
+     * approach. If sorted is false, the pairs will be inserted in the order
+     * they are received, and the tree will be recolored and rotated to
+     * maintain the red-black properties.
+     * @param elements an array of key-value pairs
+     * @param sorted   whether elements is sorted by key
+     */
+    public RedBlackTreeMap(Pair<K, V>[] elements, boolean sorted) {
+        if (!sorted) {
+            insertElements(elements);
+        } else {
+            root = createBST(elements, 0, elements.length - 1);
+            size = elements.length;
+        }
+    }
+
+    /**
+     * Builds a balanced tree of pairs[low..high] as BSTMap.createBST() does,
+     * out of RBNodes. Every level of such a tree is full except perhaps the
+     * last, so coloring the nodes of a partial last level red and all others
+     * black gives every path to a null reference the same number of black
+     * nodes.
+     * @param pairs an array of <K, V> pairs sorted by key
+     * @param low   the low index of the array of elements
+     * @param high  the high index of the array of elements
+     * @return      the root of the balanced tree of pairs
+     */
+    @Override
+    protected Node<K, V> createBST(Pair<K, V>[] pairs, int low, int high) {
+        int n = high - low + 1;
+        // The tree is perfect, with no partial last level, when n + 1 is a
+        // power of two. Otherwise its last level is at depth floor(log2 n).
+        int redDepth = (n & (n + 1)) == 0
+                ? -1 : 31 - Integer.numberOfLeadingZeros(n);
+        return createBST(pairs, low, high, 0, redDepth);
+    }
+
+    private Node<K, V> createBST(Pair<K, V>[] pairs, int low, int high,
+                                 int depth, int redDepth) {
+        if (low > high) {
+            return null;
+        }
+        int mid = low + (high - low) / 2;
+        RBNode<K, V> n = new RBNode<>(pairs[mid].key, pairs[mid].value);
+        n.red = depth == redDepth;
+        attach(n, createBST(pairs, low, mid - 1, depth + 1, redDepth),
+               createBST(pairs, mid + 1, high, depth + 1, redDepth));
+        return n;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map. A new
+     * key is attached as a red leaf, and the tree is then recolored and
+     * rotated up from it until no red node has a red parent.
+     * @param key   the key with which the specified value is to be associated
+     * @param value the value to be associated with the specified key
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     */
+    @Override
+    protected V insert(K key, V value) {
+        Node<K, V> parent = null, current = root;
+        int comparison = 0;
+        while (current != null) {
+            if (TreeMetrics.ENABLED) {
+                pathLength++;
+            }
+            comparison = key.compareTo(current.key);
+            if (comparison == 0) {
+                V oldV = current.value;
+                current.value = value;
+                return oldV;
+            }
+            parent = current;
+            current = comparison < 0 ? current.left : current.right;
+        }
+        RBNode<K, V> newN = new RBNode<>(key, value);
+        newN.red = true;
+        newN.parent = parent;
+        if (parent == null) {
+            root = newN;
+        } else if (comparison < 0) {
+            parent.left = newN;
+        } else {
+            parent.right = newN;
+        }
+        for (; parent != null; parent = parent.parent) {
+            parent.size++;
+        }
+        insertFixup(newN);
+        size++;
+        modCount++;
+        return null;
+    }
+
+    /**
+     * Restores the red-black properties after z was attached as a red leaf.
+     * While z's uncle is red, recoloring moves the violation two levels up;
+     * otherwise one or two rotations end it, and the loop stops there.
+     */
+    private void insertFixup(Node<K, V> z) {
+        while (isRed(z.parent)) {
+            Node<K, V> p = z.parent, g = p.parent;
+            if (p == g.left) {
+                Node<K, V> uncle = g.right;
+                if (isRed(uncle)) {
+                    setRed(p, false);
+                    setRed(uncle, false);
+                    setRed(g, true);
+                    z = g;
+                    continue;
+                }
+                if (z == p.right) {
+                    rotateLeft(p);
+                    p = z;
+                }
+                setRed(p, false);
+                setRed(g, true);
+                rotateRight(g);
+                break;
+            } else {
+                Node<K, V> uncle = g.left;
+                if (isRed(uncle)) {
+                    setRed(p, false);
+                    setRed(uncle, false);
+                    setRed(g, true);
+                    z = g;
+                    continue;
+                }
+                if (z == p.left) {
+                    rotateRight(p);
+                    p = z;
+                }
+                setRed(p, false);
+                setRed(g, true);
+                rotateLeft(g);
+                break;
+            }
+        }
+        setRed(root, false);
+    }
+
+    /**
+     * Removes the mapping for a key from this map if it is present. The node
+     * is unlinked with transplant() as in BSTMap.delete(), its successor
+     * taking its place and color if it had two children. If a black node was
+     * taken out of a path, the tree is recolored and rotated from there.
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     */
+    @Override
+    protected V delete(K key) {
+        Node<K, V> z = iterativeSearch(key);
+        if (z == null) {
+            return null;
+        }
+        // x moves into the place of the node taken out of the tree, and may
+        // be null, so its parent is tracked separately.
+        Node<K, V> x, xParent;
+        boolean removedRed = isRed(z);
+        if (z.left == null) {
+            x = z.right;
+            xParent = z.parent;
+            transplant(z, z.right);
+        } else if (z.right == null) {
+            x = z.left;
+            xParent = z.parent;
+            transplant(z, z.left);
+        } else {
+            Node<K, V> y = treeMinimum(z.right);
+            removedRed = isRed(y);
+            x = y.right;
+            if (y.parent == z) {
+                xParent = y;
+            } else {
+                xParent = y.parent;
+                transplant(y, y.right);
+                y.right = z.right;
+                y.right.parent = y;
+            }
+            transplant(z, y);
+            y.left = z.left;
+            y.left.parent = y;
+            setRed(y, isRed(z));
+        }
+        // Sizes must be right before the fixup rotates, since a rotation
+        // recomputes sizes from the children.
+        updateSizes(xParent);
+        if (!removedRed) {
+            deleteFixup(x, xParent);
+        }
+        size--;
+        modCount++;
+        return z.value;
+    }
+
+    /**
+     * Restores the red-black properties after a black node was removed from
+     * above x, leaving every path through x one black node short. While x's
+     * sibling and both of its children are black, recoloring moves the
+     * shortage one level up; otherwise at most three rotations end it.
+     */
+    private void deleteFixup(Node<K, V> x, Node<K, V> parent) {
+        while (x != root && !isRed(x)) {
+            if (x == parent.left) {
+                Node<K, V> w = parent.right;
+                if (isRed(w)) {
+                    setRed(w, false);
+                    setRed(parent, true);
+                    rotateLeft(parent);
+                    w = parent.right;
+                }
+                if (!isRed(w.left) && !isRed(w.right)) {
+                    setRed(w, true);
+                    x = parent;
+                    parent = x.parent;
+                    continue;
+                }
+                if (!isRed(w.right)) {
+                    setRed(w.left, false);
+                    setRed(w, true);
+                    rotateRight(w);
+                    w = parent.right;
+                }
+                setRed(w, isRed(parent));
+                setRed(parent, false);
+                setRed(w.right, false);
+                rotateLeft(parent);
+            } else {
+                Node<K, V> w = parent.left;
+                if (isRed(w)) {
+                    setRed(w, false);
+                    setRed(parent, true);
+                    rotateRight(parent);
+                    w = parent.left;
+                }
+                if (!isRed(w.left) && !isRed(w.right)) {
+                    setRed(w, true);
+                    x = parent;
+                    parent = x.parent;
+                    continue;
+                }
+                if (!isRed(w.left)) {
+                    setRed(w.right, false);
+                    setRed(w, true);
+                    rotateLeft(w);
+                    w = parent.left;
+                }
+                setRed(w, isRed(parent));
+                setRed(parent, false);
+                setRed(w.left, false);
+                rotateRight(parent);
+            }
+            x = root;
+        }
+        setRed(x, false);
+    }
+
+    /**
+     * Associates every pair in batch with its key, one put at a time. The
+     * batched descent of BSTMap.putAll() relinks subtrees without regard to
+     * color, so it cannot be used here.
+     * @param batch an array of key-value pairs in any order
+     */
+    @Override
+    public void putAll(Pair<K, V>[] batch) {
+        insertElements(batch);
+    }
+
+    /**
+     * Removes the mappings for all of the given keys that are present, one
+     * remove at a time, for the same reason as putAll().
+     * @param keys the keys whose mappings are to be removed, in any order
+     */
+    @Override
+    public void removeAll(K[] keys) {
+        for (K key : keys) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Rotates x's right child up into x's place, keeping subtree sizes.
+     */
+    private void rotateLeft(Node<K, V> x) {
+        Node<K, V> y = x.right;
+        x.right = y.left;
+        if (y.left != null) {
+            y.left.parent = x;
+        }
+        transplant(x, y);
+        y.left = x;
+        x.parent = y;
+        updateSize(x);
+        updateSize(y);
+    }
+
+    /**
+     * Rotates x's left child up into x's place; the mirror image of
+     * rotateLeft().
+     */
+    private void rotateRight(Node<K, V> x) {
+        Node<K, V> y = x.left;
+        x.left = y.right;
+        if (y.right != null) {
+            y.right.parent = x;
+        }
+        transplant(x, y);
+        y.right = x;
+        x.parent = y;
+        updateSize(x);
+        updateSize(y);
+    }
+
+    private static boolean isRed(Node<?, ?> n) {
+        return n != null && ((RBNode<?, ?>) n).red;
+    }
+
+    private static void setRed(Node<?, ?> n, boolean red) {
+        if (n != null) {
+            ((RBNode<?, ?>) n).red = red;
+        }
+    }
+
+    /**
+     * Node of a RedBlackTreeMap. Null references count as black.
+     */
+    private static class RBNode<K, V> extends Node<K, V> {
+        boolean red;
+
+        RBNode(K key, V value) {
+            super(key, value);
+        }
+    }
+}
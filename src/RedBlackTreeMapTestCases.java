@@ -0,0 +1,121 @@
+/**
+ * Test cases for RedBlackTreeMap.
+ */
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RedBlackTreeMapTestCases {
+
+    private static boolean isRed(Node<Integer, Integer> n) throws ReflectiveOperationException {
+        if (n == null) {
+            return false;
+        }
+        Field red = n.getClass().getDeclaredField("red");
+        red.setAccessible(true);
+        return red.getBoolean(n);
+    }
+
+    /**
+     * Checks the parent pointers, subtree sizes, key order and red-black
+     * properties below n, and returns the black height of its subtree.
+     */
+    private static int check(Node<Integer, Integer> n, Node<Integer, Integer> parent,
+                             Integer low, Integer high) throws ReflectiveOperationException {
+        if (n == null) {
+            return 0;
+        }
+        assertSame(parent, n.parent);
+        assertTrue(low == null || n.key > low);
+        assertTrue(high == null || n.key < high);
+        assertEquals(1 + (n.left == null ? 0 : n.left.size) + (n.right == null ? 0 : n.right.size),
+                     n.size);
+        if (isRed(n)) {
+            assertFalse(isRed(n.left));
+            assertFalse(isRed(n.right));
+        }
+        int left = check(n.left, n, low, n.key), right = check(n.right, n, n.key, high);
+        assertEquals(left, right);
+        return left + (isRed(n) ? 0 : 1);
+    }
+
+    private static void check(RedBlackTreeMap<Integer, Integer> map) throws ReflectiveOperationException {
+        assertFalse(isRed(map.root));
+        check(map.root, null, null, null);
+        assertEquals(map.size(), map.root == null ? 0 : map.root.size);
+    }
+
+    @Test
+    public void testSorted01() throws ReflectiveOperationException {
+        for (int n = 0; n <= 64; n++) {
+            Pair<Integer, Integer>[] pairs = new Pair[n];
+            for (int i = 0; i < n; i++) {
+                pairs[i] = new Pair(i, i);
+            }
+            RedBlackTreeMap<Integer, Integer> map = new RedBlackTreeMap<>(pairs, true);
+            check(map);
+            assertEquals(n, map.size());
+            map.put(n, n);
+            map.remove(0);
+            check(map);
+        }
+    }
+
+    @Test
+    public void testPutRemove01() throws ReflectiveOperationException {
+        RedBlackTreeMap<Integer, String> map = new RedBlackTreeMap<>();
+        assertNull(map.remove(1));
+        // Ascending keys would make a plain binary search tree a list.
+        for (int key = 0; key < 1023; key++) {
+            assertNull(map.put(key, "v" + key));
+        }
+        assertTrue(map.height() <= 2 * 10);
+        assertEquals("v4", map.put(4, "w"));
+        assertEquals("w", map.get(4));
+        for (int key = 0; key < 1023; key += 2) {
+            assertNotNull(map.remove(key));
+        }
+        assertNull(map.remove(0));
+        assertEquals(511, map.size());
+        assertEquals(1, map.firstKey());
+        assertEquals(1021, map.lastKey());
+        for (int key = 1; key < 1023; key += 2) {
+            assertEquals("v" + key, map.remove(key));
+        }
+        assertTrue(map.isEmpty());
+        assertNull(map.root);
+    }
+
+    @Test
+    public void testRandom01() throws Exception {
+        RedBlackTreeMap<Integer, Integer> map = new RedBlackTreeMap<>();
+        TreeMap<Integer, Integer> expected = MapOracle.run(map, 24, 20_000, 1000, 0.5, 500,
+                key -> key, i -> i, e -> check(map));
+        assertEquals(expected.firstKey(), map.firstKey());
+        assertEquals(expected.lastKey(), map.lastKey());
+    }
+
+    @Test
+    public void testBatch01() throws ReflectiveOperationException {
+        RedBlackTreeMap<Integer, Integer> map = new RedBlackTreeMap<>();
+        Pair<Integer, Integer>[] batch = new Pair[100];
+        for (int i = 0; i < 100; i++) {
+            batch[i] = new Pair(i * 7 % 100, i);
+        }
+        map.putAll(batch);
+        check(map);
+        assertEquals(100, map.size());
+        Integer[] keys = new Integer[50];
+        for (int i = 0; i < 50; i++) {
+            keys[i] = 2 * i;
+        }
+        map.removeAll(keys);
+        check(map);
+        assertEquals(50, map.size());
+        assertNull(map.get(10));
+        assertEquals(3, map.get(21));
+    }
+}
@@ -0,0 +1,259 @@
+/**
+ * Class that implements a splay tree which implements the MyMap interface.
+ *
+ * A splay tree keeps no balance information. Instead every get, put and
+ * remove splays the node it reaches, rotating it up to the root in zig,
+ * zig-zig and zig-zag steps. A get that misses splays the last node it
+ * visited. Operations take O(log n) amortized time, and keys that are used
+ * often stay near the root, so on skewed traces such as zipfian ones the
+ * average path is much shorter than in a balanced tree.
+ *
+ * Because lookups reshape the tree, get is not a read-only operation: a
+ * SplayTreeMap must not be read from several threads at once. Splaying only
+ * rotates, so the inorder sequence, and any iterator walking it, is left
+ * alone.
+ * @author Marissa Crevecoeur, mac2538
+ * @version 1.0 October 16, 2026
+ */
+public class SplayTreeMap<K extends Comparable<K>, V> extends BSTMap<K, V>
+        implements MyMap<K, V> {
+
+    /**
+     * Creates an empty splay tree map.
+     */
+    public SplayTreeMap() { }
+
+    /**
+     * Creates a splay tree map of the given key-value pairs, inserted in the
+     * order they are received.
+     * @param elements an array of key-value pairs
+     */
+    public SplayTreeMap(Pair<K, V>[] elements) {
+        insertElements(elements);
+    }
+
+    /**
+     * Creates a splay tree map of the given key-value pairs. If sorted is
+     * true, a balanced tree will be created via a divide-and-conquer
+     * approach. If sorted is false, the pairs will be inserted in the order
+     * they are received.
+     * @param elements an array of key-value pairs
+     * @param sorted   whether elements is sorted by key
+     */
+    public SplayTreeMap(Pair<K, V>[] elements, boolean sorted) {
+        if (!sorted) {
+            insertElements(elements);
+        } else {
+            root = createBST(elements, 0, elements.length - 1);
+            size = elements.length;
+        }
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key, and splays the last node visited
+     * to the root. A splaying get writes to the map anyway, so its path is
+     * counted in the same field as that of put and remove.
+     * @param  key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or null if this
+     *         map contains no mapping for the key
+     */
+    @Override
+    public V get(K key) {
+        long start = startTiming();
+        if (TreeMetrics.ENABLED) {
+            pathLength = 0;
+        }
+        Node<K, V> x = iterativeSearch(key);
+        stopTiming(TreeMetrics.GET, pathLength, start);
+        return x != null ? x.value : null;
+    }
+
+    /**
+     * Searches for the node holding key as BSTMap.iterativeSearch() does, and
+     * then splays it to the root. If the key is not in the tree, the last node
+     * on the search path is splayed instead, so a miss still pays for itself.
+     * @param key the key to search for
+     * @return a reference to the Node containing the specified key, or null
+     */
+    @Override
+    protected Node<K, V> iterativeSearch(K key) {
+        Node<K, V> last = null, current = root;
+        while (current != null) {
+            if (TreeMetrics.ENABLED) {
+                pathLength++;
+            }
+            last = current;
+            int comparison = key.compareTo(current.key);
+            if (comparison < 0) {
+                current = current.left;
+            } else if (comparison > 0) {
+                current = current.right;
+            } else {
+                break;
+            }
+        }
+        if (last != null) {
+            splay(last);
+        }
+        return current;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map and
+     * splays the node holding the key to the root.
+     * @param key   the key with which the specified value is to be associated
+     * @param value the value to be associated with the specified key
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     */
+    @Override
+    protected V insert(K key, V value) {
+        Node<K, V> parent = null, current = root;
+        int comparison = 0;
+        while (current != null) {
+            if (TreeMetrics.ENABLED) {
+                pathLength++;
+            }
+            comparison = key.compareTo(current.key);
+            if (comparison == 0) {
+                V oldV = current.value;
+                current.value = value;
+                splay(current);
+                return oldV;
+            }
+            parent = current;
+            current = comparison < 0 ? current.left : current.right;
+        }
+        Node<K, V> newN = new Node<>(key, value);
+        newN.parent = parent;
+        if (parent == null) {
+            root = newN;
+        } else if (comparison < 0) {
+            parent.left = newN;
+        } else {
+            parent.right = newN;
+        }
+        for (; parent != null; parent = parent.parent) {
+            parent.size++;
+        }
+        splay(newN);
+        size++;
+        modCount++;
+        return null;
+    }
+
+    /**
+     * Removes the mapping for a key from this map if it is present. The node
+     * holding the key is splayed to the root and unlinked, and the largest
+     * node of its left subtree is splayed to the top of that subtree, where it
+     * has no right child and can take the old right subtree.
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with key, or null if there was no
+     *         mapping for key
+     */
+    @Override
+    protected V delete(K key) {
+        Node<K, V> z = iterativeSearch(key);
+        if (z == null) {
+            return null;
+        }
+        Node<K, V> left = z.left, right = z.right;
+        z.left = z.right = null;
+        if (left == null) {
+            root = right;
+            if (right != null) {
+                right.parent = null;
+            }
+        } else {
+            root = left;
+            left.parent = null;
+            Node<K, V> max = treeMaximum(left);
+            splay(max);
+            max.right = right;
+            if (right != null) {
+                right.parent = max;
+            }
+            updateSize(max);
+        }
+        size--;
+        modCount++;
+        return z.value;
+    }
+
+    /**
+     * Associates every pair in batch with its key, one put at a time, so that
+     * each key is splayed as it arrives. The batched descent of
+     * BSTMap.putAll() never rotates, so it would leave a long path in place
+     * for every later batch to walk down again.
+     * @param batch an array of key-value pairs in any order
+     */
+    @Override
+    public void putAll(Pair<K, V>[] batch) {
+        insertElements(batch);
+    }
+
+    /**
+     * Removes the mappings for all of the given keys that are present, one
+     * remove at a time, for the same reason as putAll().
+     * @param keys the keys whose mappings are to be removed, in any order
+     */
+    @Override
+    public void removeAll(K[] keys) {
+        for (K key : keys) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Rotates x up to the root. While x has a grandparent, a zig-zig step
+     * rotates the parent above the grandparent first and then x above the
+     * parent, and a zig-zag step rotates x up twice; a final zig step handles
+     * a parent that is the root. Subtree sizes are kept up to date by the
+     * rotations.
+     * @param x the node to move to the root
+     */
+    private void splay(Node<K, V> x) {
+        while (x.parent != null) {
+            Node<K, V> p = x.parent, g = p.parent;
+            if (g == null) {
+                rotateUp(x);
+            } else if ((x == p.left) == (p == g.left)) {
+                rotateUp(p);
+                rotateUp(x);
+            } else {
+                rotateUp(x);
+                rotateUp(x);
+            }
+        }
+        // Rotations do not count as structural modifications, so the cached
+        // shape metrics have to be dropped by hand.
+        invalidateShapeMetrics();
+    }
+
+    /**
+     * Rotates x above its parent, keeping the inorder sequence.
+     * @param x a node with a parent
+     */
+    private void rotateUp(Node<K, V> x) {
+        Node<K, V> p = x.parent;
+        if (x == p.left) {
+            p.left = x.right;
+            if (x.right != null) {
+                x.right.parent = p;
+            }
+            transplant(p, x);
+            x.right = p;
+        } else {
+            p.right = x.left;
+            if (x.left != null) {
+                x.left.parent = p;
+            }
+            transplant(p, x);
+            x.left = p;
+        }
+        p.parent = x;
+        updateSize(p);
+        updateSize(x);
+    }
+}
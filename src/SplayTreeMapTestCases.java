@@ -0,0 +1,143 @@
+/**
+ * Test cases for SplayTreeMap.
+ */
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SplayTreeMapTestCases {
+
+    /**
+     * Checks the parent pointers, subtree sizes and key order below n, and
+     * returns the number of nodes in its subtree.
+     */
+    private static int check(Node<Integer, Integer> n, Node<Integer, Integer> parent,
+                             Integer low, Integer high) {
+        if (n == null) {
+            return 0;
+        }
+        assertSame(parent, n.parent);
+        assertTrue(low == null || n.key > low);
+        assertTrue(high == null || n.key < high);
+        int size = 1 + check(n.left, n, low, n.key) + check(n.right, n, n.key, high);
+        assertEquals(size, n.size);
+        return size;
+    }
+
+    @Test
+    public void testSplay01() {
+        Pair<Integer, Integer>[] pairs = new Pair[15];
+        for (int i = 0; i < 15; i++) {
+            pairs[i] = new Pair(i, i * 10);
+        }
+        SplayTreeMap<Integer, Integer> map = new SplayTreeMap<>(pairs, true);
+        assertEquals(7, map.root.key);
+        assertEquals(30, map.get(3));
+        assertEquals(3, map.root.key);
+        assertEquals(140, map.get(14));
+        assertEquals(14, map.root.key);
+        // A miss splays the last node on the search path.
+        assertNull(map.get(100));
+        assertEquals(14, map.root.key);
+        assertNull(map.put(20, 200));
+        assertEquals(20, map.root.key);
+        assertEquals(50, map.put(5, 55));
+        assertEquals(5, map.root.key);
+        assertEquals(16, check(map.root, null, null, null));
+        assertEquals(16, map.size());
+        assertEquals("[<0, 0>, <1, 10>, <2, 20>, <3, 30>, <4, 40>, <5, 55>, <6, 60>, <7, 70>, "
+                + "<8, 80>, <9, 90>, <10, 100>, <11, 110>, <12, 120>, <13, 130>, <14, 140>, "
+                + "<20, 200>]", map.toString());
+    }
+
+    @Test
+    public void testRemove01() {
+        SplayTreeMap<Integer, Integer> map = new SplayTreeMap<>();
+        assertNull(map.remove(1));
+        for (int key : new int[] {5, 2, 8, 1, 3, 7, 9}) {
+            map.put(key, key);
+        }
+        assertEquals(5, map.remove(5));
+        assertEquals(3, map.root.key);
+        assertNull(map.remove(5));
+        assertEquals(1, map.remove(1));
+        assertEquals(2, map.remove(2));
+        assertEquals(3, map.remove(3));
+        // With no left subtree the right one becomes the tree.
+        assertEquals(7, map.root.key);
+        assertEquals(3, check(map.root, null, null, null));
+        assertEquals("[<7, 7>, <8, 8>, <9, 9>]", map.toString());
+        map.remove(7);
+        map.remove(8);
+        map.remove(9);
+        assertTrue(map.isEmpty());
+        assertNull(map.root);
+    }
+
+    @Test
+    public void testRandom01() throws Exception {
+        SplayTreeMap<Integer, Integer> map = new SplayTreeMap<>();
+        TreeMap<Integer, Integer> expected = MapOracle.run(map, 23, 20_000, 1000, 0.5, 1000,
+                key -> key, i -> i, e -> assertEquals(e.size(), check(map.root, null, null, null)));
+        assertEquals(expected.firstKey(), map.firstKey());
+        assertEquals(expected.lastKey(), map.lastKey());
+    }
+
+    @Test
+    public void testBatch01() {
+        // Ascending puts leave a path with one node on each level.
+        SplayTreeMap<Integer, Integer> map = new SplayTreeMap<>();
+        for (int key = 0; key < 100_000; key++) {
+            map.put(key, key);
+        }
+        assertEquals(99_999, map.height());
+        Pair<Integer, Integer>[] batch = new Pair[]{new Pair<>(-1, 1)};
+        map.putAll(batch);
+        assertEquals(-1, map.root.key);
+        map.removeAll(new Integer[]{50_000});
+        batch = new Pair[]{new Pair<>(50_000, 2), new Pair<>(0, 3), new Pair<>(100_000, 4)};
+        map.putAll(batch);
+        map.removeAll(new Integer[]{99_999, 7, -2, 7});
+        assertEquals(100_000, map.size());
+        assertEquals(100_000, map.root.size);
+        assertEquals(2, map.get(50_000));
+        assertEquals(3, map.get(0));
+        assertNull(map.get(7));
+        int[] last = {-2};
+        map.forEach((k, v) -> {
+            assertTrue(k > last[0]);
+            last[0] = k;
+        });
+        assertEquals(100_000, last[0]);
+    }
+
+    @Test
+    public void testIterator01() {
+        SplayTreeMap<Integer, Integer> map = new SplayTreeMap<>();
+        for (int key = 0; key < 200; key++) {
+            map.put(key, key);
+        }
+        // Splaying on get rotates around the iterator but must not disturb it.
+        Random random = new Random(5);
+        int next = 0;
+        for (Pair<Integer, Integer> pair : map) {
+            assertEquals(next++, pair.key);
+            map.get(random.nextInt(200));
+        }
+        assertEquals(200, next);
+        Iterator<Pair<Integer, Integer>> it = map.iterator();
+        while (it.hasNext()) {
+            if (it.next().key % 2 == 0) {
+                it.remove();
+            }
+            map.get(random.nextInt(200));
+        }
+        assertEquals(100, map.size());
+        assertEquals(100, check(map.root, null, null, null));
+        assertEquals(1, map.firstKey());
+    }
+}
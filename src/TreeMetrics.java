@@ -0,0 +1,247 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Class that collects hot-path metrics from BSTMap and AVLTreeMap: the path
+ * length and latency of each get, put and remove, the number of single and
+ * double rotations, and the number of cached heights AVLTreeMap reads while
+ * rebalancing. Each node on a path is compared with the key once, so the
+ * path lengths are also the number of key comparisons.
+ *
+ * Instrumentation is off unless the JVM is started with
+ * -Dbstmap.metrics=true. ENABLED is a static final field, so the JIT treats
+ * it as a constant, and when it is false every guarded recording site in the
+ * maps is compiled away; leaving the instrumentation in production code then
+ * costs nothing. When it is on, the counters are LongAdders, so threads
+ * recording into the shared instance do not contend on one cache line.
+ *
+ * Latencies are kept in log2 histograms: bucket i counts the operations that
+ * took between 2^i and 2^(i+1) - 1 nanoseconds. The metrics can be read with
+ * snapshot(), or exported over JMX with register().
+ * @author Marissa Crevecoeur, mac2538
+ * @version 1.0 October 16, 2026
+ */
+public class TreeMetrics implements TreeMetricsMXBean {
+    /** Whether the maps record metrics, read once at startup. */
+    public static final boolean ENABLED = Boolean.getBoolean("bstmap.metrics");
+    /** The name under which register() exports the metrics. */
+    public static final String OBJECT_NAME = "BSTMap:type=TreeMetrics";
+    public static final int GET = 0, PUT = 1, REMOVE = 2;
+    private static final int OPERATIONS = 3, BUCKETS = 64;
+    private static final TreeMetrics GLOBAL = new TreeMetrics();
+
+    private final LongAdder singleRotations = new LongAdder();
+    private final LongAdder doubleRotations = new LongAdder();
+    private final LongAdder heightLookups = new LongAdder();
+    private final LongAdder[] calls = adders(OPERATIONS);
+    private final LongAdder[] pathLengths = adders(OPERATIONS);
+    private final LongAdder[][] latencies = new LongAdder[OPERATIONS][];
+
+    /**
+     * Creates a set of metrics with every counter at zero. The maps record
+     * into the shared instance returned by global().
+     */
+    TreeMetrics() {
+        for (int op = 0; op < OPERATIONS; op++) {
+            latencies[op] = adders(BUCKETS);
+        }
+    }
+
+    private static LongAdder[] adders(int n) {
+        LongAdder[] adders = new LongAdder[n];
+        for (int i = 0; i < n; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Returns the metrics that the maps record into.
+     * @return the shared metrics
+     */
+    public static TreeMetrics global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Registers the shared metrics with the platform MBean server under
+     * OBJECT_NAME, unless they are registered already.
+     * @throws JMException if the metrics cannot be registered
+     */
+    public static synchronized void register() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (server.isRegistered(name)) {
+            return;
+        }
+        try {
+            server.registerMBean(GLOBAL, name);
+        } catch (InstanceAlreadyExistsException e) {
+            // Registered by someone else since the check.
+        }
+    }
+
+    /**
+     * Records one get, put or remove.
+     * @param op         GET, PUT or REMOVE
+     * @param pathLength the number of nodes visited
+     * @param nanos      how long the operation took
+     */
+    public void record(int op, int pathLength, long nanos) {
+        calls[op].increment();
+        pathLengths[op].add(pathLength);
+        latencies[op][63 - Long.numberOfLeadingZeros(Math.max(nanos, 1))]
+                .increment();
+    }
+
+    /**
+     * Records a single rotation.
+     */
+    public void recordSingleRotation() {
+        singleRotations.increment();
+    }
+
+    /**
+     * Records a double rotation.
+     */
+    public void recordDoubleRotation() {
+        doubleRotations.increment();
+    }
+
+    /**
+     * Records one read of a node's height while rebalancing.
+     */
+    public void recordHeightLookup() {
+        heightLookups.increment();
+    }
+
+    /**
+     * Returns a copy of the current values of every counter and histogram.
+     * Operations recorded while the copy is taken may or may not be in it.
+     * @return a snapshot of the metrics
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public long getGets() {
+        return calls[GET].sum();
+    }
+
+    public long getPuts() {
+        return calls[PUT].sum();
+    }
+
+    public long getRemoves() {
+        return calls[REMOVE].sum();
+    }
+
+    public double getMeanGetPathLength() {
+        return mean(GET);
+    }
+
+    public double getMeanPutPathLength() {
+        return mean(PUT);
+    }
+
+    public double getMeanRemovePathLength() {
+        return mean(REMOVE);
+    }
+
+    private double mean(int op) {
+        long n = calls[op].sum();
+        return n == 0 ? 0 : (double) pathLengths[op].sum() / n;
+    }
+
+    public long getSingleRotations() {
+        return singleRotations.sum();
+    }
+
+    public long getDoubleRotations() {
+        return doubleRotations.sum();
+    }
+
+    public long getHeightLookups() {
+        return heightLookups.sum();
+    }
+
+    public long[] getGetLatencyHistogram() {
+        return histogram(GET);
+    }
+
+    public long[] getPutLatencyHistogram() {
+        return histogram(PUT);
+    }
+
+    public long[] getRemoveLatencyHistogram() {
+        return histogram(REMOVE);
+    }
+
+    private long[] histogram(int op) {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = latencies[op][i].sum();
+        }
+        return counts;
+    }
+
+    public void reset() {
+        singleRotations.reset();
+        doubleRotations.reset();
+        heightLookups.reset();
+        for (int op = 0; op < OPERATIONS; op++) {
+            calls[op].reset();
+            pathLengths[op].reset();
+            for (LongAdder bucket : latencies[op]) {
+                bucket.reset();
+            }
+        }
+    }
+
+    /**
+     * Immutable copy of the metrics at one point in time.
+     */
+    public static class Snapshot {
+        public final long singleRotations, doubleRotations, heightLookups;
+        public final long gets, puts, removes;
+        public final double meanGetPathLength, meanPutPathLength,
+                meanRemovePathLength;
+        public final long[] getLatencies, putLatencies, removeLatencies;
+
+        private Snapshot(TreeMetrics metrics) {
+            singleRotations = metrics.getSingleRotations();
+            doubleRotations = metrics.getDoubleRotations();
+            heightLookups = metrics.getHeightLookups();
+            gets = metrics.getGets();
+            puts = metrics.getPuts();
+            removes = metrics.getRemoves();
+            meanGetPathLength = metrics.getMeanGetPathLength();
+            meanPutPathLength = metrics.getMeanPutPathLength();
+            meanRemovePathLength = metrics.getMeanRemovePathLength();
+            getLatencies = metrics.getGetLatencyHistogram();
+            putLatencies = metrics.getPutLatencyHistogram();
+            removeLatencies = metrics.getRemoveLatencyHistogram();
+        }
+
+        /**
+         * Returns the counters and mean path lengths on one line.
+         * @return a String representation of the snapshot
+         */
+        public String toString() {
+            return String.format("gets=%d puts=%d removes=%d "
+                    + "path(get/put/remove)=%.2f/%.2f/%.2f "
+                    + "rotations(single/double)=%d/%d heightLookups=%d", gets,
+                    puts, removes, meanGetPathLength, meanPutPathLength,
+                    meanRemovePathLength, singleRotations, doubleRotations,
+                    heightLookups);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Management interface through which TreeMetrics is exported over JMX.
+ * @author Marissa Crevecoeur, mac2538
+ * @version 1.0 October 16, 2026
+ */
+public interface TreeMetricsMXBean {
+
+    /**
+     * Returns whether instrumentation was switched on at startup.
+     * @return true if the tree maps are recording metrics
+     */
+    boolean isEnabled();
+
+    /**
+     * Returns the number of get calls recorded.
+     * @return the number of get calls
+     */
+    long getGets();
+
+    /**
+     * Returns the number of put calls recorded.
+     * @return the number of put calls
+     */
+    long getPuts();
+
+    /**
+     * Returns the number of remove calls recorded.
+     * @return the number of remove calls
+     */
+    long getRemoves();
+
+    /**
+     * Returns the mean number of nodes visited per get.
+     * @return the mean path length of get
+     */
+    double getMeanGetPathLength();
+
+    /**
+     * Returns the mean number of nodes visited per put.
+     * @return the mean path length of put
+     */
+    double getMeanPutPathLength();
+
+    /**
+     * Returns the mean number of nodes visited per remove.
+     * @return the mean path length of remove
+     */
+    double getMeanRemovePathLength();
+
+    /**
+     * Returns the number of single rotations done while rebalancing.
+     * @return the number of single rotations
+     */
+    long getSingleRotations();
+
+    /**
+     * Returns the number of double rotations done while rebalancing.
+     * @return the number of double rotations
+     */
+    long getDoubleRotations();
+
+    /**
+     * Returns the number of node heights read by AVLTreeMap while
+     * rebalancing. Heights are cached, so this grows with log n per put or
+     * remove.
+     * @return the number of height lookups
+     */
+    long getHeightLookups();
+
+    /**
+     * Returns the get latency histogram. Bucket i counts the calls that took
+     * between 2^i and 2^(i+1) - 1 nanoseconds.
+     * @return the get latency histogram
+     */
+    long[] getGetLatencyHistogram();
+
+    /**
+     * Returns the put latency histogram, bucketed as for get.
+     * @return the put latency histogram
+     */
+    long[] getPutLatencyHistogram();
+
+    /**
+     * Returns the remove latency histogram, bucketed as for get.
+     * @return the remove latency histogram
+     */
+    long[] getRemoveLatencyHistogram();
+
+    /**
+     * Sets every counter and histogram back to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,159 @@
+/**
+ * Test cases for TreeMetrics.
+ */
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TreeMetricsTestCases {
+
+    @Test
+    public void testRecord01() {
+        TreeMetrics metrics = new TreeMetrics();
+        metrics.record(TreeMetrics.GET, 10, 1);
+        metrics.record(TreeMetrics.GET, 20, 1000);
+        metrics.record(TreeMetrics.PUT, 5, 0);
+        metrics.recordSingleRotation();
+        metrics.recordDoubleRotation();
+        metrics.recordDoubleRotation();
+        metrics.recordHeightLookup();
+        TreeMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.gets);
+        assertEquals(1, snapshot.puts);
+        assertEquals(0, snapshot.removes);
+        assertEquals(15.0, snapshot.meanGetPathLength, 1e-9);
+        assertEquals(0.0, snapshot.meanRemovePathLength, 1e-9);
+        assertEquals(1, snapshot.singleRotations);
+        assertEquals(2, snapshot.doubleRotations);
+        assertEquals(1, snapshot.heightLookups);
+        // 1ns falls in bucket 0 and 1000ns in bucket 9 (512 to 1023).
+        assertEquals(1, snapshot.getLatencies[0]);
+        assertEquals(1, snapshot.getLatencies[9]);
+        assertEquals(1, snapshot.putLatencies[0]);
+
+        metrics.reset();
+        assertEquals(0, metrics.getGets());
+        assertEquals(0, metrics.getMeanGetPathLength(), 1e-9);
+        // The snapshot is unaffected by later changes.
+        assertEquals(2, snapshot.gets);
+    }
+
+    @Test
+    public void testDisabled01() {
+        if (TreeMetrics.ENABLED) {
+            return;
+        }
+        TreeMetrics.global().reset();
+        AVLTreeMap<Integer, Integer> map = new AVLTreeMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+            map.get(i);
+        }
+        map.remove(3);
+        assertEquals(0, TreeMetrics.global().getGets());
+        assertEquals(0, TreeMetrics.global().getSingleRotations());
+        assertEquals(0, TreeMetrics.global().getHeightLookups());
+    }
+
+    @Test
+    public void testEnabled01() throws Exception {
+        if (TreeMetrics.ENABLED) {
+            checkEnabled();
+            return;
+        }
+        // ENABLED is fixed once TreeMetrics is loaded, so run checkEnabled()
+        // through main() in a JVM started with the flag.
+        runWithMetrics(TreeMetricsTestCases.class);
+    }
+
+    /**
+     * Runs the main() of testClass in a JVM started with
+     * -Dbstmap.metrics=true, and fails with its output unless it exits
+     * normally. Tests that need TreeMetrics.ENABLED go through here.
+     * @param testClass a test class whose main() runs the checks
+     */
+    static void runWithMetrics(Class<?> testClass) throws Exception {
+        String classPath = String.join(File.pathSeparator,
+                codeSource(testClass), codeSource(TreeMetrics.class),
+                codeSource(Test.class), codeSource(org.opentest4j.AssertionFailedError.class));
+        Process process = new ProcessBuilder(
+                System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                "-Dbstmap.metrics=true", "-cp", classPath, testClass.getName())
+                .redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes());
+        assertEquals(0, process.waitFor(), output);
+    }
+
+    private static String codeSource(Class<?> c) throws Exception {
+        return new File(c.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+    }
+
+    public static void main(String[] args) {
+        checkEnabled();
+    }
+
+    /**
+     * Checks the rotations, path lengths and latencies recorded by AVLTreeMap
+     * and BSTMap. Only meaningful when TreeMetrics.ENABLED.
+     */
+    private static void checkEnabled() {
+        assertTrue(TreeMetrics.ENABLED);
+        TreeMetrics metrics = TreeMetrics.global();
+        metrics.reset();
+        AVLTreeMap<Integer, Integer> avl = new AVLTreeMap<>();
+        // Visits 0, 1 and 2 nodes; the third put rotates 1 down to the left.
+        avl.put(1, 1);
+        avl.put(2, 2);
+        avl.put(3, 3);
+        assertEquals(1, metrics.getSingleRotations());
+        assertEquals(0, metrics.getDoubleRotations());
+        assertEquals(1.0, metrics.getMeanPutPathLength(), 1e-9);
+        // 3, 1 and then 2 between them needs a double rotation.
+        avl = new AVLTreeMap<>();
+        avl.put(3, 3);
+        avl.put(1, 1);
+        avl.put(2, 2);
+        assertEquals(1, metrics.getDoubleRotations());
+        assertEquals(6, metrics.getPuts());
+
+        // A degenerate BSTMap: a hit on 2 visits 3 nodes, and a miss below
+        // the last node visits all 4.
+        BSTMap<Integer, Integer> bst = new BSTMap<>();
+        for (int key = 0; key < 4; key++) {
+            bst.put(key, key);
+        }
+        assertEquals(2, bst.get(2));
+        assertNull(bst.get(9));
+        assertEquals(2, metrics.getGets());
+        assertEquals(3.5, metrics.getMeanGetPathLength(), 1e-9);
+        assertEquals(1, bst.remove(1));
+        assertEquals(1, metrics.getRemoves());
+        assertEquals(2.0, metrics.getMeanRemovePathLength(), 1e-9);
+
+        TreeMetrics.Snapshot snapshot = metrics.snapshot();
+        long timedGets = 0;
+        for (long count : snapshot.getLatencies) {
+            timedGets += count;
+        }
+        assertEquals(2, timedGets);
+        assertEquals(1, snapshot.singleRotations);
+    }
+
+    @Test
+    public void testJmx01() throws JMException {
+        TreeMetrics.register();
+        // Registering again is harmless.
+        TreeMetrics.register();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(TreeMetrics.OBJECT_NAME);
+        assertEquals(TreeMetrics.ENABLED, server.getAttribute(name, "Enabled"));
+        assertEquals(TreeMetrics.global().getPuts(), server.getAttribute(name, "Puts"));
+        assertEquals(64, ((long[]) server.getAttribute(name, "GetLatencyHistogram")).length);
+    }
+}